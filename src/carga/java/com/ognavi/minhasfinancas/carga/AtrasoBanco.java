@@ -0,0 +1,83 @@
+package com.ognavi.minhasfinancas.carga;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Acrescenta um atraso fixo a cada execução de comando no banco (-Dcarga.atraso-consulta-ms=150), como um banco
+ * remoto com essa latência de ida e volta. Com o H2 em memória as consultas não bloqueiam, e o teste não
+ * diferencia a aplicação que espera o banco em threads de plataforma da que espera em threads virtuais.
+ * O atraso só começa depois de {@link #ativar()}, para não alongar a carga inicial dos dados.
+ */
+final class AtrasoBanco implements BeanPostProcessor {
+
+	private final long atrasoMs;
+	private volatile boolean ativo;
+
+	AtrasoBanco(long atrasoMs) {
+		this.atrasoMs = atrasoMs;
+	}
+
+	void ativar() {
+		ativo = true;
+	}
+
+	//só o DataSource principal: o de roteamento e os pools ficam por trás dele
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if(!"dataSource".equals(beanName) || !(bean instanceof DataSource)) {
+			return bean;
+		}
+		return new DelegatingDataSource((DataSource) bean) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return atrasar(super.getConnection());
+			}
+
+			@Override
+			public Connection getConnection(String username, String password) throws SQLException {
+				return atrasar(super.getConnection(username, password));
+			}
+		};
+	}
+
+	//os comandos criados pela conexão dormem antes de cada execute*
+	private Connection atrasar(Connection conexao) {
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, metodo, argumentos) -> {
+					Object resultado = invocar(conexao, metodo, argumentos);
+					if(resultado instanceof Statement && metodo.getReturnType().isInterface()) {
+						return atrasar((Statement) resultado, metodo.getReturnType());
+					}
+					return resultado;
+				});
+	}
+
+	private Object atrasar(Statement comando, Class<?> tipo) {
+		return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { tipo },
+				(proxy, metodo, argumentos) -> {
+					if(ativo && metodo.getName().startsWith("execute")) {
+						Thread.sleep(atrasoMs);
+					}
+					return invocar(comando, metodo, argumentos);
+				});
+	}
+
+	private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+		try {
+			return metodo.invoke(alvo, argumentos);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.ognavi.minhasfinancas.carga;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Um cliente virtual: dispara as requisições em instantes fixos, a taxa / clientes por segundo, sem esperar
+ * a resposta anterior para agendar a próxima. A latência é medida a partir do instante previsto e não do envio,
+ * assim o tempo em que o cliente ficou atrasado por um servidor lento também entra nos percentis.
+ */
+final class ClienteCarga implements Runnable {
+
+	private static final String[] STATUS = { "PENDENTE", "EFETIVADO", "CANCELADO" };
+
+	private final RestTemplate http;
+	private final String base;
+	private final List<UsuarioCarga> usuarios;
+	private final List<OperacaoCarga> sorteio;
+	private final Random random;
+	private final long primeiroEnvioNanos;
+	private final long intervaloNanos;
+	private final long fimAquecimentoNanos;
+	private final long fimNanos;
+
+	private final Map<OperacaoCarga, Histogram> latencias = new EnumMap<>(OperacaoCarga.class);
+	private final Map<OperacaoCarga, Long> erros = new EnumMap<>(OperacaoCarga.class);
+
+	ClienteCarga(RestTemplate http, String base, List<UsuarioCarga> usuarios, List<OperacaoCarga> sorteio, long semente,
+			long primeiroEnvioNanos, long intervaloNanos, long fimAquecimentoNanos, long fimNanos) {
+		this.http = http;
+		this.base = base;
+		this.usuarios = usuarios;
+		this.sorteio = sorteio;
+		this.random = new Random(semente);
+		this.primeiroEnvioNanos = primeiroEnvioNanos;
+		this.intervaloNanos = intervaloNanos;
+		this.fimAquecimentoNanos = fimAquecimentoNanos;
+		this.fimNanos = fimNanos;
+		for (OperacaoCarga operacao : OperacaoCarga.values()) {
+			latencias.put(operacao, new Histogram(3));
+			erros.put(operacao, 0l);
+		}
+	}
+
+	@Override
+	public void run() {
+		for (long previsto = primeiroEnvioNanos; previsto < fimNanos; previsto += intervaloNanos) {
+			long espera = previsto - System.nanoTime();
+			if(espera > 0) {
+				LockSupport.parkNanos(espera);
+			}
+
+			OperacaoCarga operacao = sorteio.get(random.nextInt(sorteio.size()));
+			boolean sucesso;
+			try {
+				sucesso = executar(operacao, usuarios.get(random.nextInt(usuarios.size())));
+			} catch (RuntimeException e) {
+				sucesso = false;
+			}
+			long latencia = System.nanoTime() - previsto;
+
+			if(previsto >= fimAquecimentoNanos) {
+				latencias.get(operacao).recordValue(TimeUnit.NANOSECONDS.toMicros(latencia));
+				if(!sucesso) {
+					erros.merge(operacao, 1l, Long::sum);
+				}
+			}
+		}
+	}
+
+	private boolean executar(OperacaoCarga operacao, UsuarioCarga usuario) {
+		switch (operacao) {
+		case AUTENTICAR:
+			return enviar(HttpMethod.POST, "/api/usuarios/autenticar", null,
+					"{\"email\":\"" + usuario.getEmail() + "\",\"senha\":\"" + TesteCarga.SENHA + "\"}");
+		case BUSCAR:
+			return enviar(HttpMethod.GET, "/api/lancamentos?usuario=" + usuario.getId() + "&ano=" + (2015 + random.nextInt(6)),
+					usuario.getToken(), null);
+		case SALVAR:
+			return enviar(HttpMethod.POST, "/api/lancamentos", usuario.getToken(),
+					"{\"descricao\":\"Carga " + random.nextInt(1000) + "\",\"mes\":" + (1 + random.nextInt(12))
+					+ ",\"ano\":" + (2015 + random.nextInt(6)) + ",\"valor\":" + (1 + random.nextInt(5000))
+					+ ",\"tipo\":\"" + (random.nextInt(4) == 0 ? "RECEITA" : "DESPESA") + "\",\"usuario\":" + usuario.getId() + "}");
+		case ATUALIZAR_STATUS:
+			List<Long> lancamentos = usuario.getLancamentos();
+			return enviar(HttpMethod.PUT, "/api/lancamentos/" + lancamentos.get(random.nextInt(lancamentos.size())) + "/atualiza-status",
+					usuario.getToken(), "{\"status\":\"" + STATUS[random.nextInt(STATUS.length)] + "\"}");
+		case SALDO:
+			return enviar(HttpMethod.GET, "/api/usuarios/" + usuario.getId() + "/saldo", usuario.getToken(), null);
+		default:
+			throw new IllegalStateException("Operação sem requisição: " + operacao);
+		}
+	}
+
+	private boolean enviar(HttpMethod metodo, String caminho, String token, String corpo) {
+		HttpHeaders headers = new HttpHeaders();
+		if(corpo != null) {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+		}
+		if(token != null) {
+			headers.set(HttpHeaders.AUTHORIZATION, token);
+		}
+		ResponseEntity<byte[]> resposta = http.exchange(base + caminho, metodo, new HttpEntity<>(corpo, headers), byte[].class);
+		return resposta.getStatusCode().is2xxSuccessful();
+	}
+
+	Map<OperacaoCarga, Histogram> getLatencias() {
+		return Collections.unmodifiableMap(latencias);
+	}
+
+	Map<OperacaoCarga, Long> getErros() {
+		return Collections.unmodifiableMap(erros);
+	}
+
+}
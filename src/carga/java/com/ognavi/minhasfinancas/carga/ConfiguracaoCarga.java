@@ -0,0 +1,99 @@
+package com.ognavi.minhasfinancas.carga;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parâmetros do teste de carga, lidos das propriedades de sistema (-Dcarga.taxa=500 ...).
+ * O mix é uma lista de operação:peso, por exemplo buscar:4,saldo:3.
+ */
+public final class ConfiguracaoCarga {
+
+	private final int usuarios = Integer.getInteger("carga.usuarios", 20);
+	private final int lancamentosPorUsuario = Integer.getInteger("carga.lancamentos", 200);
+	private final int clientes = Integer.getInteger("carga.clientes", 16);
+	private final int taxa = Integer.getInteger("carga.taxa", 200);
+	private final int duracaoSegundos = Integer.getInteger("carga.duracao-segundos", 30);
+	private final int aquecimentoSegundos = Integer.getInteger("carga.aquecimento-segundos", 10);
+	private final long semente = Long.getLong("carga.semente", 42);
+	private final long atrasoConsultaMs = Long.getLong("carga.atraso-consulta-ms", 0);
+	private final Map<OperacaoCarga, Integer> mix = lerMix(
+			System.getProperty("carga.mix", "autenticar:1,buscar:4,salvar:2,atualizar-status:2,saldo:3"));
+
+	private static Map<OperacaoCarga, Integer> lerMix(String valor) {
+		Map<OperacaoCarga, Integer> mix = new EnumMap<>(OperacaoCarga.class);
+		for (String item : valor.split(",")) {
+			String[] partes = item.trim().split(":");
+			int peso = partes.length > 1 ? Integer.parseInt(partes[1].trim()) : 1;
+			if(peso > 0) {
+				mix.put(OperacaoCarga.porNome(partes[0].trim()), peso);
+			}
+		}
+		if(mix.isEmpty()) {
+			throw new IllegalArgumentException("Informe ao menos uma operação no mix.");
+		}
+		return mix;
+	}
+
+	//cada operação aparece tantas vezes quanto o seu peso, o sorteio é um índice aleatório
+	public List<OperacaoCarga> sorteio() {
+		List<OperacaoCarga> sorteio = new ArrayList<>();
+		mix.forEach( (operacao, peso) -> {
+			for (int i = 0; i < peso; i++) {
+				sorteio.add(operacao);
+			}
+		});
+		return sorteio;
+	}
+
+	public Map<String, Object> resumo() {
+		Map<String, Object> resumo = new LinkedHashMap<>();
+		resumo.put("usuarios", usuarios);
+		resumo.put("lancamentosPorUsuario", lancamentosPorUsuario);
+		resumo.put("clientes", clientes);
+		resumo.put("taxa", taxa);
+		resumo.put("duracaoSegundos", duracaoSegundos);
+		resumo.put("aquecimentoSegundos", aquecimentoSegundos);
+		resumo.put("atrasoConsultaMs", atrasoConsultaMs);
+		Map<String, Integer> pesos = new LinkedHashMap<>();
+		mix.forEach( (operacao, peso) -> pesos.put(operacao.getNome(), peso) );
+		resumo.put("mix", pesos);
+		return resumo;
+	}
+
+	public int getUsuarios() {
+		return usuarios;
+	}
+
+	public int getLancamentosPorUsuario() {
+		return lancamentosPorUsuario;
+	}
+
+	public int getClientes() {
+		return clientes;
+	}
+
+	public int getTaxa() {
+		return taxa;
+	}
+
+	public int getDuracaoSegundos() {
+		return duracaoSegundos;
+	}
+
+	public int getAquecimentoSegundos() {
+		return aquecimentoSegundos;
+	}
+
+	public long getSemente() {
+		return semente;
+	}
+
+	public long getAtrasoConsultaMs() {
+		return atrasoConsultaMs;
+	}
+
+}
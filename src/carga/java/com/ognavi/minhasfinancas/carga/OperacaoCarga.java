@@ -0,0 +1,29 @@
+package com.ognavi.minhasfinancas.carga;
+
+public enum OperacaoCarga {
+
+	AUTENTICAR("autenticar"),
+	BUSCAR("buscar"),
+	SALVAR("salvar"),
+	ATUALIZAR_STATUS("atualizar-status"),
+	SALDO("saldo");
+
+	private final String nome;
+
+	OperacaoCarga(String nome) {
+		this.nome = nome;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public static OperacaoCarga porNome(String nome) {
+		for (OperacaoCarga operacao : values()) {
+			if(operacao.nome.equals(nome)) {
+				return operacao;
+			}
+		}
+		throw new IllegalArgumentException("Operação desconhecida no mix: " + nome);
+	}
+}
\ No newline at end of file
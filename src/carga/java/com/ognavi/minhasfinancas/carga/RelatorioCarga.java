@@ -0,0 +1,109 @@
+package com.ognavi.minhasfinancas.carga;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Junta os histogramas dos clientes e grava a vazão e os percentis de latência por operação em JSON,
+ * para comparar execuções de builds diferentes.
+ */
+final class RelatorioCarga {
+
+	private static final double[] PERCENTIS = { 50, 95, 99 };
+
+	private final ConfiguracaoCarga configuracao;
+	private final Map<OperacaoCarga, Histogram> latencias = new EnumMap<>(OperacaoCarga.class);
+	private final Map<OperacaoCarga, Long> erros = new EnumMap<>(OperacaoCarga.class);
+
+	RelatorioCarga(ConfiguracaoCarga configuracao, List<ClienteCarga> clientes) {
+		this.configuracao = configuracao;
+		for (ClienteCarga cliente : clientes) {
+			cliente.getLatencias().forEach( (operacao, histograma) ->
+				latencias.computeIfAbsent(operacao, chave -> new Histogram(3)).add(histograma) );
+			cliente.getErros().forEach( (operacao, quantidade) -> erros.merge(operacao, quantidade, Long::sum) );
+		}
+	}
+
+	Map<String, Object> gerar() {
+		double duracao = configuracao.getDuracaoSegundos();
+		Histogram total = new Histogram(3);
+		long errosTotal = 0;
+
+		Map<String, Object> operacoes = new LinkedHashMap<>();
+		for (Map.Entry<OperacaoCarga, Histogram> entrada : latencias.entrySet()) {
+			Histogram histograma = entrada.getValue();
+			if(histograma.getTotalCount() == 0) {
+				continue;
+			}
+			long errosOperacao = erros.getOrDefault(entrada.getKey(), 0l);
+			operacoes.put(entrada.getKey().getNome(), resumir(histograma, errosOperacao, duracao));
+			total.add(histograma);
+			errosTotal += errosOperacao;
+		}
+
+		Map<String, Object> relatorio = new LinkedHashMap<>();
+		relatorio.put("configuracao", configuracao.resumo());
+		relatorio.put("total", resumir(total, errosTotal, duracao));
+		relatorio.put("operacoes", operacoes);
+		return relatorio;
+	}
+
+	void gravar(File arquivo) throws IOException {
+		Map<String, Object> relatorio = gerar();
+		arquivo.getParentFile().mkdirs();
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(arquivo, relatorio);
+	}
+
+	void imprimir() {
+		System.out.printf("%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+				"operação", "requisições", "erros", "req/s", "p50 ms", "p95 ms", "p99 ms", "máx ms");
+		Histogram total = new Histogram(3);
+		latencias.forEach( (operacao, histograma) -> {
+			if(histograma.getTotalCount() > 0) {
+				imprimir(operacao.getNome(), histograma, erros.getOrDefault(operacao, 0l));
+				total.add(histograma);
+			}
+		});
+		imprimir("total", total, erros.values().stream().mapToLong(Long::longValue).sum());
+	}
+
+	private void imprimir(String nome, Histogram histograma, long errosOperacao) {
+		System.out.printf("%-18s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+				nome, histograma.getTotalCount(), errosOperacao,
+				histograma.getTotalCount() / (double) configuracao.getDuracaoSegundos(),
+				milissegundos(histograma.getValueAtPercentile(50)),
+				milissegundos(histograma.getValueAtPercentile(95)),
+				milissegundos(histograma.getValueAtPercentile(99)),
+				milissegundos(histograma.getMaxValue()));
+	}
+
+	private static Map<String, Object> resumir(Histogram histograma, long errosOperacao, double duracao) {
+		Map<String, Object> latencia = new LinkedHashMap<>();
+		for (double percentil : PERCENTIS) {
+			latencia.put("p" + (int) percentil, milissegundos(histograma.getValueAtPercentile(percentil)));
+		}
+		latencia.put("max", milissegundos(histograma.getMaxValue()));
+		latencia.put("media", histograma.getTotalCount() == 0 ? 0 : Math.round(histograma.getMean()) / 1000d);
+
+		Map<String, Object> resumo = new LinkedHashMap<>();
+		resumo.put("requisicoes", histograma.getTotalCount());
+		resumo.put("erros", errosOperacao);
+		resumo.put("vazao", Math.round(histograma.getTotalCount() / duracao * 10) / 10d);
+		resumo.put("latenciaMs", latencia);
+		return resumo;
+	}
+
+	//os histogramas guardam microssegundos
+	private static double milissegundos(long micros) {
+		return micros / 1000d;
+	}
+
+}
@@ -0,0 +1,196 @@
+package com.ognavi.minhasfinancas.carga;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.ognavi.minhasfinancas.MinhasfinancasApplication;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
+import com.ognavi.minhasfinancas.service.ResumoMensalService;
+import com.ognavi.minhasfinancas.service.SaldoUsuarioService;
+
+/**
+ * Teste de carga de ponta a ponta: sobe a aplicação com o perfil de testes (H2 em memória), cadastra os usuários
+ * e lançamentos, executa o mix de operações pela API HTTP na taxa configurada e grava o relatório no arquivo
+ * informado no primeiro argumento. As requisições do aquecimento não entram no relatório.
+ */
+public final class TesteCarga {
+
+	static final String SENHA = "senha";
+
+	private TesteCarga() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		ConfiguracaoCarga configuracao = new ConfiguracaoCarga();
+		File saida = new File(args.length > 0 ? args[0] : "target/carga-result.json");
+
+		//o HttpURLConnection mantém por padrão só 5 conexões abertas por destino
+		System.setProperty("http.maxConnections", String.valueOf(configuracao.getClientes()));
+		//o devtools está no classpath de teste e subiria a aplicação de novo em outro class loader
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		AtrasoBanco atraso = configuracao.getAtrasoConsultaMs() > 0 ? new AtrasoBanco(configuracao.getAtrasoConsultaMs()) : null;
+		try (ConfigurableApplicationContext contexto = iniciarAplicacao(atraso)) {
+			String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+			RestTemplate http = criarCliente();
+			List<UsuarioCarga> usuarios = popular(contexto, http, base, configuracao);
+			if(atraso != null) {
+				atraso.ativar();
+			}
+
+			List<ClienteCarga> clientes = executar(http, base, usuarios, configuracao);
+
+			RelatorioCarga relatorio = new RelatorioCarga(configuracao, clientes);
+			relatorio.imprimir();
+			relatorio.gravar(saida);
+			System.out.println("Relatório gravado em " + saida.getAbsolutePath());
+		}
+	}
+
+	private static ConfigurableApplicationContext iniciarAplicacao(AtrasoBanco atraso) {
+		String[] propriedades = {
+				"server.port=0",
+				"spring.datasource.url=jdbc:h2:mem:db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+				"spring.jpa.show-sql=false",
+				"logging.level.root=WARN",
+				"minhasfinancas.saldo.verificacao.cron=-",
+				"minhasfinancas.resumo.reconstrucao.cron=-",
+				//todos os clientes saem do mesmo IP e de poucos usuários: o limite por cliente mediria só a si mesmo
+				"minhasfinancas.limite.habilitado=false" };
+
+		//como argumentos, para valer sobre o application.properties; o que vier com -D em carga.opcoes prevalece
+		List<String> argumentos = new ArrayList<>();
+		for (String propriedade : propriedades) {
+			if(System.getProperty(propriedade.substring(0, propriedade.indexOf('='))) == null) {
+				argumentos.add("--" + propriedade);
+			}
+		}
+		SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(MinhasfinancasApplication.class).profiles("test");
+		if(atraso != null) {
+			aplicacao.initializers(contexto -> contexto.getBeanFactory().addBeanPostProcessor(atraso));
+		}
+		return aplicacao.run(argumentos.toArray(new String[0]));
+	}
+
+	private static RestTemplate criarCliente() {
+		RestTemplate http = new RestTemplate();
+		//as respostas de erro são contadas no relatório, não lançadas
+		http.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public boolean hasError(ClientHttpResponse response) {
+				return false;
+			}
+		});
+		return http;
+	}
+
+	//os dados vão direto pelos repositórios; somente a autenticação, para obter os tokens, passa pela API
+	private static List<UsuarioCarga> popular(ConfigurableApplicationContext contexto, RestTemplate http, String base,
+			ConfiguracaoCarga configuracao) {
+		UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+		LancamentoRepository lancamentoRepository = contexto.getBean(LancamentoRepository.class);
+		String senha = new BCryptPasswordEncoder().encode(SENHA);
+		Random random = new Random(configuracao.getSemente());
+
+		List<UsuarioCarga> usuarios = new ArrayList<>();
+		for (int i = 0; i < configuracao.getUsuarios(); i++) {
+			Usuario usuario = usuarioRepository.save(Usuario.builder()
+					.nome("carga" + i)
+					.email("carga" + i + "@email.com")
+					.senha(senha)
+					.build());
+			List<Lancamento> lancamentos = new ArrayList<>();
+			for (int j = 0; j < configuracao.getLancamentosPorUsuario(); j++) {
+				lancamentos.add(gerarLancamento(usuario, random));
+			}
+			List<Long> ids = lancamentoRepository.saveAll(lancamentos).stream()
+					.map(Lancamento::getId)
+					.collect(Collectors.toList());
+			usuarios.add(new UsuarioCarga(usuario.getId(), usuario.getEmail(), autenticar(http, base, usuario.getEmail()),
+					Collections.unmodifiableList(ids)));
+		}
+
+		contexto.getBean(SaldoUsuarioService.class).verificarSaldos();
+		contexto.getBean(ResumoMensalService.class).reconstruir();
+		return usuarios;
+	}
+
+	private static String autenticar(RestTemplate http, String base, String email) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		ResponseEntity<String> resposta = http.postForEntity(base + "/api/usuarios/autenticar",
+				new HttpEntity<>("{\"email\":\"" + email + "\",\"senha\":\"" + SENHA + "\"}", headers), String.class);
+		String token = resposta.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+		if(token == null) {
+			throw new IllegalStateException("Falha ao autenticar " + email + ": " + resposta.getBody());
+		}
+		return token;
+	}
+
+	private static Lancamento gerarLancamento(Usuario usuario, Random random) {
+		StatusLancamento[] status = StatusLancamento.values();
+		return Lancamento.builder()
+				.descricao("Lançamento " + random.nextInt(1000))
+				.ano(2015 + random.nextInt(6))
+				.mes(1 + random.nextInt(12))
+				.valor(BigDecimal.valueOf(1 + random.nextInt(500000), 2))
+				.tipo(random.nextInt(4) == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+				.status(status[random.nextInt(status.length)])
+				.usuario(usuario)
+				.dataCadastro(LocalDate.now())
+				.build();
+	}
+
+	//os clientes dividem a taxa e começam defasados, para que os envios fiquem espalhados no intervalo
+	private static List<ClienteCarga> executar(RestTemplate http, String base, List<UsuarioCarga> usuarios,
+			ConfiguracaoCarga configuracao) throws InterruptedException {
+		int quantidade = configuracao.getClientes();
+		long intervaloNanos = TimeUnit.SECONDS.toNanos(1) * quantidade / configuracao.getTaxa();
+		long inicioNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+		long fimAquecimentoNanos = inicioNanos + TimeUnit.SECONDS.toNanos(configuracao.getAquecimentoSegundos());
+		long fimNanos = fimAquecimentoNanos + TimeUnit.SECONDS.toNanos(configuracao.getDuracaoSegundos());
+		List<OperacaoCarga> sorteio = configuracao.sorteio();
+
+		List<ClienteCarga> clientes = new ArrayList<>(quantidade);
+		List<Thread> threads = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			ClienteCarga cliente = new ClienteCarga(http, base, usuarios, sorteio, configuracao.getSemente() + i,
+					inicioNanos + intervaloNanos * i / quantidade, intervaloNanos, fimAquecimentoNanos, fimNanos);
+			Thread thread = new Thread(cliente, "cliente-carga-" + i);
+			clientes.add(cliente);
+			threads.add(thread);
+			thread.start();
+		}
+
+		System.out.printf("%d clientes, %d req/s, %d s de aquecimento e %d s de medição...%n", quantidade,
+				configuracao.getTaxa(), configuracao.getAquecimentoSegundos(), configuracao.getDuracaoSegundos());
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return clientes;
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.ognavi.minhasfinancas.carga;
+
+import java.util.List;
+
+final class UsuarioCarga {
+
+	private final Long id;
+	private final String email;
+	private final String token;
+	private final List<Long> lancamentos;
+
+	UsuarioCarga(Long id, String email, String token, List<Long> lancamentos) {
+		this.id = id;
+		this.email = email;
+		this.token = token;
+		this.lancamentos = lancamentos;
+	}
+
+	Long getId() {
+		return id;
+	}
+
+	String getEmail() {
+		return email;
+	}
+
+	//header Authorization completo, como devolvido na autenticação
+	String getToken() {
+		return token;
+	}
+
+	List<Long> getLancamentos() {
+		return lancamentos;
+	}
+
+}
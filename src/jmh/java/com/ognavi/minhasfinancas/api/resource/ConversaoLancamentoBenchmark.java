@@ -0,0 +1,109 @@
+package com.ognavi.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+
+/**
+ * Conversões entre {@link Lancamento} e {@link LancamentoDTO} feitas pelo
+ * {@link LancamentoResource} e a serialização JSON das respostas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversaoLancamentoBenchmark {
+
+	private LancamentoResource resource;
+	private ObjectMapper objectMapper;
+	private Function<Long, Optional<Usuario>> buscarUsuario;
+	
+	private Lancamento lancamento;
+	private LancamentoDTO dto;
+	
+	@Setup
+	public void setUp() {
+		//as conversões não utilizam os serviços
+		resource = new LancamentoResource(null, null, null, null, null, null);
+		
+		//mesma configuração do ObjectMapper criado pelo Spring Boot
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		
+		Usuario usuario = Usuario.builder().id(1l).nome("usuario").email("usuario@email.com").senha("senha").build();
+		Optional<Usuario> usuarioEncontrado = Optional.of(usuario);
+		buscarUsuario = id -> usuarioEncontrado;
+		
+		lancamento = Lancamento.builder()
+				.id(1l)
+				.descricao("Supermercado")
+				.ano(2020)
+				.mes(3)
+				.valor(BigDecimal.valueOf(25990, 2))
+				.tipo(TipoLancamento.DESPESA)
+				.status(StatusLancamento.EFETIVADO)
+				.dataCadastro(LocalDate.of(2020, 3, 10))
+				.usuario(usuario)
+				.build();
+		
+		dto = resource.converter(lancamento);
+	}
+	
+	@Benchmark
+	public LancamentoDTO converterParaDTO() {
+		return resource.converter(lancamento);
+	}
+	
+	@Benchmark
+	public Lancamento converterParaEntidade() {
+		return resource.converter(dto, buscarUsuario);
+	}
+	
+	@Benchmark
+	public LancamentoDTO construirDTO() {
+		return LancamentoDTO.builder()
+				.id(1l)
+				.descricao("Supermercado")
+				.ano(2020)
+				.mes(3)
+				.valor(lancamento.getValor())
+				.tipo("DESPESA")
+				.status("EFETIVADO")
+				.usuario(1l)
+				.build();
+	}
+	
+	@Benchmark
+	public String serializarLancamento() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(lancamento);
+	}
+	
+	@Benchmark
+	public String serializarDTO() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(dto);
+	}
+	
+}
@@ -0,0 +1,88 @@
+package com.ognavi.minhasfinancas.api.resource;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.benchmark.DadosBenchmark;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+
+/**
+ * Serialização da listagem de lançamentos em cada formato negociado pelo Accept
+ * (application/json, application/x-jackson-smile e application/cbor).
+ * O tamanho de cada payload é impresso na saída do fork ao preparar o estado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoLancamentoBenchmark {
+
+	@Param({ "json", "smile", "cbor" })
+	private String formato;
+	
+	@Param({ "100", "1000" })
+	private int quantidade;
+	
+	private ObjectMapper objectMapper;
+	private List<Lancamento> lancamentos;
+	private List<LancamentoDTO> dtos;
+	
+	@Setup
+	public void setUp() throws JsonProcessingException {
+		//mesmos builders usados pelos conversores que o @EnableWebMvc registra
+		switch (formato) {
+		case "smile":
+			objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+			break;
+		case "cbor":
+			objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+			break;
+		default:
+			objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		}
+		
+		Usuario usuario = Usuario.builder().id(1l).nome("usuario").email("usuario@email.com").senha("senha").build();
+		lancamentos = DadosBenchmark.gerarLancamentos(usuario, quantidade, new Random(42));
+		for (int i = 0; i < lancamentos.size(); i++) {
+			lancamentos.get(i).setId((long) i + 1);
+		}
+		
+		LancamentoResource resource = new LancamentoResource(null, null, null, null, null, null);
+		dtos = lancamentos.stream().map(resource::converter).collect(Collectors.toList());
+		
+		System.out.printf("%n%s, %d lançamentos: %d bytes (DTO), %d bytes (entidade com o usuário aninhado)%n",
+				formato, quantidade, serializarDTOs().length, serializarEntidades().length);
+	}
+	
+	@Benchmark
+	public byte[] serializarDTOs() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(dtos);
+	}
+	
+	@Benchmark
+	public byte[] serializarEntidades() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(lancamentos);
+	}
+	
+}
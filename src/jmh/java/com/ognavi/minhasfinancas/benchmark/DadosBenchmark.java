@@ -0,0 +1,119 @@
+package com.ognavi.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ognavi.minhasfinancas.MinhasfinancasApplication;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
+import com.ognavi.minhasfinancas.service.SaldoUsuarioService;
+
+/**
+ * Sobe a aplicação com o perfil de testes (H2 em memória) e gera massas de dados
+ * com distribuição parecida com a de produção para os benchmarks.
+ */
+public final class DadosBenchmark {
+
+	private static final String[] DESCRICOES = {
+			"Salário", "Aluguel", "Supermercado", "Conta de luz", "Conta de água",
+			"Internet", "Restaurante", "Combustível", "Farmácia", "Academia",
+			"Cartão de crédito", "Freelance", "Dividendos", "Escola", "Viagem" };
+	
+	private DadosBenchmark() {
+	}
+	
+	public static ConfigurableApplicationContext iniciarAplicacao() {
+		//a configuração do @EnableWebMvc exige o ServletContext, por isso o servidor sobe em uma porta aleatória
+		return new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.profiles("test")
+				.properties(
+						"server.port=0",
+						"spring.datasource.url=jdbc:h2:mem:db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"spring.jpa.show-sql=false",
+						"logging.level.root=WARN",
+						"minhasfinancas.saldo.verificacao.cron=-")
+				.run();
+	}
+	
+	/**
+	 * Sobe a aplicação com o perfil padrão (PostgreSQL e migrações do Flyway) no banco informado em
+	 * -Dbenchmark.postgres.url, -Dbenchmark.postgres.usuario e -Dbenchmark.postgres.senha.
+	 */
+	public static ConfigurableApplicationContext iniciarAplicacaoPostgres() {
+		String url = System.getProperty("benchmark.postgres.url");
+		if(url == null) {
+			throw new IllegalStateException("Informe o banco PostgreSQL dedicado aos benchmarks em -Dbenchmark.postgres.url.");
+		}
+		
+		//como argumentos, para valer sobre o application.properties
+		return new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=" + url,
+						"--spring.datasource.username=" + System.getProperty("benchmark.postgres.usuario", "postgres"),
+						"--spring.datasource.password=" + System.getProperty("benchmark.postgres.senha", "admin"),
+						"--minhasfinancas.r2dbc.url=" + url.replaceFirst("^jdbc:", "r2dbc:"),
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=WARN",
+						"--minhasfinancas.saldo.verificacao.cron=-",
+						"--minhasfinancas.resumo.reconstrucao.cron=-");
+	}
+	
+	/**
+	 * Cadastra os usuários e seus lançamentos e consolida os saldos ao final.
+	 * 
+	 * @return os usuários cadastrados
+	 */
+	public static List<Usuario> popular(ConfigurableApplicationContext contexto, int usuarios, int lancamentosPorUsuario) {
+		UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+		LancamentoRepository lancamentoRepository = contexto.getBean(LancamentoRepository.class);
+		Random random = new Random(42);
+		
+		List<Usuario> cadastrados = new ArrayList<>();
+		for (int i = 0; i < usuarios; i++) {
+			Usuario usuario = usuarioRepository.save(Usuario.builder()
+					.nome("usuario" + i)
+					.email("usuario" + i + "@email.com")
+					.senha("senha")
+					.build());
+			cadastrados.add(usuario);
+			lancamentoRepository.saveAll(gerarLancamentos(usuario, lancamentosPorUsuario, random));
+		}
+		
+		contexto.getBean(SaldoUsuarioService.class).verificarSaldos();
+		return cadastrados;
+	}
+	
+	public static List<Lancamento> gerarLancamentos(Usuario usuario, int quantidade, Random random) {
+		List<Lancamento> lancamentos = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			lancamentos.add(gerarLancamento(usuario, random));
+		}
+		return lancamentos;
+	}
+	
+	public static Lancamento gerarLancamento(Usuario usuario, Random random) {
+		StatusLancamento[] status = StatusLancamento.values();
+		return Lancamento.builder()
+				.descricao(DESCRICOES[random.nextInt(DESCRICOES.length)] + " " + random.nextInt(1000))
+				.ano(2015 + random.nextInt(6))
+				.mes(1 + random.nextInt(12))
+				.valor(BigDecimal.valueOf(1 + random.nextInt(500000), 2))
+				.tipo(random.nextInt(4) == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+				.status(status[random.nextInt(status.length)])
+				.usuario(usuario)
+				.dataCadastro(LocalDate.now())
+				.build();
+	}
+	
+}
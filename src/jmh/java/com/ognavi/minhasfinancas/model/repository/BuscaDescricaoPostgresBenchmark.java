@@ -0,0 +1,120 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.benchmark.DadosBenchmark;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.service.LancamentoService;
+
+/**
+ * Busca "contendo" da descrição no PostgreSQL, com e sem o índice de trigramas do V6: a busca por exemplo
+ * (ExampleMatcher, como era feita antes da projeção) e a consulta atual do {@link LancamentoService#buscar(Lancamento)}.
+ * Precisa de um banco dedicado, as tabelas são esvaziadas e populadas a cada execução:
+ * <pre>
+ * mvn -P jmh -DskipTests verify -Djmh.filtro=BuscaDescricaoPostgresBenchmark \
+ *     -Djmh.opcoes="-jvmArgsAppend -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/benchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class BuscaDescricaoPostgresBenchmark {
+
+	private static final String INDICE_TRIGRAMAS = "idx_lancamento_descricao_trgm";
+	
+	@Param({ "true", "false" })
+	private boolean indiceTrigramas;
+	
+	@Param({ "200" })
+	private int usuarios;
+	
+	@Param({ "500" })
+	private int lancamentosPorUsuario;
+	
+	@Param({ "mercado" })
+	private String descricao;
+	
+	private ConfigurableApplicationContext contexto;
+	private LancamentoRepository repository;
+	private LancamentoService service;
+	private List<Usuario> cadastrados;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = DadosBenchmark.iniciarAplicacaoPostgres();
+		repository = contexto.getBean(LancamentoRepository.class);
+		service = contexto.getBean(LancamentoService.class);
+		
+		JdbcTemplate jdbc = new JdbcTemplate(contexto.getBean(DataSource.class));
+		jdbc.execute("truncate financas.resumo_mensal, financas.saldo_usuario, financas.lancamento, financas.usuario cascade");
+		jdbc.execute("drop index if exists financas." + INDICE_TRIGRAMAS);
+		cadastrados = DadosBenchmark.popular(contexto, usuarios, lancamentosPorUsuario);
+		
+		//mesma definição do V6__indices_consultas.sql, criada depois da carga
+		if(indiceTrigramas) {
+			jdbc.execute("create index " + INDICE_TRIGRAMAS + " on financas.lancamento using gin ( lower(descricao) gin_trgm_ops )");
+		}
+		jdbc.execute("analyze financas.lancamento");
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		//o banco fica com o índice das migrações, como em produção
+		new JdbcTemplate(contexto.getBean(DataSource.class)).execute("create index if not exists " + INDICE_TRIGRAMAS
+				+ " on financas.lancamento using gin ( lower(descricao) gin_trgm_ops )");
+		contexto.close();
+	}
+	
+	@Benchmark
+	public List<Lancamento> buscarPorExemplo() {
+		Lancamento filtro = Lancamento.builder()
+				.usuario(sortearUsuario())
+				.descricao(descricao)
+				.build();
+		return repository.findAll(Example.of(filtro, ExampleMatcher
+				.matching()
+				.withIgnoreCase()
+				.withStringMatcher(StringMatcher.CONTAINING)));
+	}
+	
+	@Benchmark
+	public List<LancamentoDTO> buscarResumo() {
+		return service.buscar(Lancamento.builder()
+				.usuario(sortearUsuario())
+				.descricao(descricao)
+				.build());
+	}
+	
+	private Usuario sortearUsuario() {
+		return cadastrados.get(ThreadLocalRandom.current().nextInt(cadastrados.size()));
+	}
+	
+}
@@ -0,0 +1,160 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.PaginaDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
+import com.ognavi.minhasfinancas.benchmark.DadosBenchmark;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.FormatoExportacao;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.service.ExportacaoService;
+import com.ognavi.minhasfinancas.service.LancamentoService;
+
+/**
+ * Consultas de lançamentos contra o H2 do perfil de testes, populado com
+ * {@code usuarios * lancamentosPorUsuario} linhas. Cada chamada sorteia um usuário.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class LancamentoRepositoryBenchmark {
+
+	@Param({ "200" })
+	private int usuarios;
+	
+	@Param({ "500" })
+	private int lancamentosPorUsuario;
+	
+	private ConfigurableApplicationContext contexto;
+	private LancamentoRepository repository;
+	private SaldoUsuarioRepository saldoUsuarioRepository;
+	private LancamentoService service;
+	private ExportacaoService exportacaoService;
+	private List<Usuario> cadastrados;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = DadosBenchmark.iniciarAplicacao();
+		repository = contexto.getBean(LancamentoRepository.class);
+		saldoUsuarioRepository = contexto.getBean(SaldoUsuarioRepository.class);
+		service = contexto.getBean(LancamentoService.class);
+		exportacaoService = contexto.getBean(ExportacaoService.class);
+		cadastrados = DadosBenchmark.popular(contexto, usuarios, lancamentosPorUsuario);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		contexto.close();
+	}
+	
+	@Benchmark
+	public void saldoPorTipo(Blackhole blackhole) {
+		Long id = sortearUsuario().getId();
+		blackhole.consume(repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO));
+		blackhole.consume(repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO));
+	}
+	
+	@Benchmark
+	public Optional<SaldoUsuario> saldoConsolidadoCalculado() {
+		return repository.obterSaldoConsolidadoPorUsuario(sortearUsuario().getId());
+	}
+	
+	@Benchmark
+	public Optional<SaldoUsuario> saldoConsolidadoGravado() {
+		return saldoUsuarioRepository.findById(sortearUsuario().getId());
+	}
+	
+	@Benchmark
+	public List<SaldoPeriodoDTO> saldoPorMesEStatus() {
+		return repository.obterSaldoPorMesEStatus(sortearUsuario().getId(), 2018, null);
+	}
+	
+	//linha de base do buscarResumo: a busca por exemplo que ele substituiu, carregando as entidades
+	@Benchmark
+	public List<Lancamento> buscarPorExemplo() {
+		Lancamento filtro = Lancamento.builder()
+				.usuario(sortearUsuario())
+				.descricao("mercado")
+				.build();
+		return repository.findAll(Example.of(filtro, ExampleMatcher
+				.matching()
+				.withIgnoreCase()
+				.withStringMatcher(StringMatcher.CONTAINING)));
+	}
+	
+	@Benchmark
+	public List<LancamentoDTO> buscarResumo() {
+		return service.buscar(Lancamento.builder()
+				.usuario(sortearUsuario())
+				.descricao("mercado")
+				.build());
+	}
+	
+	@Benchmark
+	public PaginaDTO<LancamentoDTO> buscarPrimeiraPagina() {
+		return service.buscar(Lancamento.builder()
+				.usuario(sortearUsuario())
+				.descricao("mercado")
+				.build(), null, null);
+	}
+	
+	@Benchmark
+	public long exportarCsv() throws IOException {
+		ContadorBytes saida = new ContadorBytes();
+		exportacaoService.exportarLancamentos(sortearUsuario().getId(), FormatoExportacao.CSV, saida);
+		return saida.total;
+	}
+	
+	private Usuario sortearUsuario() {
+		return cadastrados.get(ThreadLocalRandom.current().nextInt(cadastrados.size()));
+	}
+	
+	//descarta o conteúdo exportado, mede apenas a leitura e a formatação
+	private static class ContadorBytes extends OutputStream {
+		
+		private long total;
+		
+		@Override
+		public void write(int b) {
+			total++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {
+			total += len;
+		}
+	}
+	
+}
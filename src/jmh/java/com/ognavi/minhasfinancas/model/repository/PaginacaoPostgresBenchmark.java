@@ -0,0 +1,130 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.PaginaDTO;
+import com.ognavi.minhasfinancas.benchmark.DadosBenchmark;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.service.LancamentoService;
+
+/**
+ * Paginação por chave do {@link LancamentoService#buscar(Lancamento, String, Integer)} no PostgreSQL, na primeira
+ * página e a partir de um cursor no meio dos lançamentos do usuário. Antes de medir, confere no plano da consulta
+ * que o início da leitura no índice (id_usuario, ano, mes, id) é limitado pelo ano do cursor, e não apenas pelo usuário.
+ * Precisa de um banco dedicado, as tabelas são esvaziadas e populadas a cada execução:
+ * <pre>
+ * mvn -P jmh -DskipTests verify -Djmh.filtro=PaginacaoPostgresBenchmark \
+ *     -Djmh.opcoes="-jvmArgsAppend -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/benchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class PaginacaoPostgresBenchmark {
+	
+	//os lançamentos gerados vão de 2015 a 2020, o cursor fica no meio deles
+	private static final int CURSOR_ANO = 2018;
+	private static final int CURSOR_MES = 6;
+	
+	//mesmos predicados do LancamentoRepository.buscarPagina, sem os filtros opcionais
+	private static final String CONSULTA_PAGINA =
+			  " select l.id, l.descricao, l.mes, l.ano, l.valor, l.id_usuario, l.tipo, l.status "
+			+ " from financas.lancamento l "
+			+ " where l.id_usuario = %d "
+			+ "   and l.ano >= %d "
+			+ "   and ( l.ano > %d or ( l.ano = %d and ( l.mes > %d or ( l.mes = %d and l.id > 0 ) ) ) ) "
+			+ " order by l.ano, l.mes, l.id "
+			+ " limit %d ";
+	
+	@Param({ "200" })
+	private int usuarios;
+	
+	@Param({ "500" })
+	private int lancamentosPorUsuario;
+	
+	@Param({ "20" })
+	private int tamanho;
+	
+	private ConfigurableApplicationContext contexto;
+	private LancamentoService service;
+	private List<Usuario> cadastrados;
+	private String cursor;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = DadosBenchmark.iniciarAplicacaoPostgres();
+		service = contexto.getBean(LancamentoService.class);
+		
+		JdbcTemplate jdbc = new JdbcTemplate(contexto.getBean(DataSource.class));
+		jdbc.execute("truncate financas.resumo_mensal, financas.saldo_usuario, financas.lancamento, financas.usuario cascade");
+		cadastrados = DadosBenchmark.popular(contexto, usuarios, lancamentosPorUsuario);
+		jdbc.execute("analyze financas.lancamento");
+		
+		//mesmo formato do cursor devolvido pelo serviço: ano:mes:id
+		cursor = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((CURSOR_ANO + ":" + CURSOR_MES + ":0").getBytes(StandardCharsets.UTF_8));
+		
+		verificarPlano(jdbc);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		contexto.close();
+	}
+	
+	@Benchmark
+	public PaginaDTO<LancamentoDTO> buscarPrimeiraPagina() {
+		return service.buscar(Lancamento.builder().usuario(sortearUsuario()).build(), null, tamanho);
+	}
+	
+	@Benchmark
+	public PaginaDTO<LancamentoDTO> buscarPaginaIntermediaria() {
+		return service.buscar(Lancamento.builder().usuario(sortearUsuario()).build(), cursor, tamanho);
+	}
+	
+	//sem o limite do ano no Index Cond, o índice é lido desde o primeiro lançamento do usuário e o OR vira filtro
+	private void verificarPlano(JdbcTemplate jdbc) {
+		String consulta = String.format(CONSULTA_PAGINA, cadastrados.get(0).getId(),
+				CURSOR_ANO, CURSOR_ANO, CURSOR_ANO, CURSOR_MES, CURSOR_MES, tamanho + 1);
+		List<String> plano = jdbc.queryForList("explain " + consulta, String.class);
+		
+		boolean limitadoPeloAno = plano.stream()
+				.anyMatch( linha -> linha.contains("Index Cond") && linha.contains("ano >=") );
+		if(!limitadoPeloAno) {
+			throw new IllegalStateException("A leitura do índice na paginação não é limitada pelo ano do cursor:\n"
+					+ String.join("\n", plano));
+		}
+	}
+	
+	private Usuario sortearUsuario() {
+		return cadastrados.get(ThreadLocalRandom.current().nextInt(cadastrados.size()));
+	}
+	
+}
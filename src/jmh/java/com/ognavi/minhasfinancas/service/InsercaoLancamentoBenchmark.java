@@ -0,0 +1,82 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ognavi.minhasfinancas.benchmark.DadosBenchmark;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+
+/**
+ * Inclusão de {@code quantidade} lançamentos um a um ({@link LancamentoService#salvar(Lancamento)})
+ * comparada com a inclusão em lote ({@link LancamentoService#salvarLote(List)}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class InsercaoLancamentoBenchmark {
+
+	@Param({ "500" })
+	private int quantidade;
+	
+	private ConfigurableApplicationContext contexto;
+	private LancamentoService service;
+	private LancamentoRepository repository;
+	private Usuario usuario;
+	private Random random;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = DadosBenchmark.iniciarAplicacao();
+		service = contexto.getBean(LancamentoService.class);
+		repository = contexto.getBean(LancamentoRepository.class);
+		usuario = DadosBenchmark.popular(contexto, 1, 0).get(0);
+		random = new Random(42);
+	}
+	
+	//evita que o crescimento da tabela distorça as últimas iterações
+	@TearDown(Level.Iteration)
+	public void limpar() {
+		repository.deleteAllInBatch();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		contexto.close();
+	}
+	
+	@Benchmark
+	public void salvarUmAUm(Blackhole blackhole) {
+		for (Lancamento lancamento : DadosBenchmark.gerarLancamentos(usuario, quantidade, random)) {
+			blackhole.consume(service.salvar(lancamento));
+		}
+	}
+	
+	@Benchmark
+	public Map<Integer, String> salvarLote() {
+		return service.salvarLote(DadosBenchmark.gerarLancamentos(usuario, quantidade, random));
+	}
+	
+}
@@ -0,0 +1,80 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ognavi.minhasfinancas.exception.RegraNegocioException;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+/**
+ * Custo de {@link LancamentoService#validar(Lancamento)} para um lançamento
+ * válido e para o caso de erro, que cria a exceção com stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoLancamentoBenchmark {
+
+	private LancamentoService service;
+	private Lancamento valido;
+	private Lancamento semValor;
+	
+	@Setup
+	public void setUp() {
+		//validar não acessa os repositórios
+		service = new LancamentoServiceImpl(null, null, null, null);
+		
+		valido = Lancamento.builder()
+				.descricao("Supermercado")
+				.ano(2020)
+				.mes(3)
+				.valor(BigDecimal.valueOf(25990, 2))
+				.tipo(TipoLancamento.DESPESA)
+				.status(StatusLancamento.PENDENTE)
+				.usuario(Usuario.builder().id(1l).build())
+				.build();
+		
+		semValor = Lancamento.builder()
+				.descricao("Supermercado")
+				.ano(2020)
+				.mes(3)
+				.tipo(TipoLancamento.DESPESA)
+				.usuario(Usuario.builder().id(1l).build())
+				.build();
+	}
+	
+	@Benchmark
+	public Lancamento validarLancamentoValido() {
+		service.validar(valido);
+		return valido;
+	}
+	
+	@Benchmark
+	public RegraNegocioException validarLancamentoInvalido() {
+		try {
+			service.validar(semValor);
+			return null;
+		} catch (RegraNegocioException e) {
+			return e;
+		}
+	}
+	
+}
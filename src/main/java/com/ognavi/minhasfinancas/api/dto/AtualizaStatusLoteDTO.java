@@ -0,0 +1,23 @@
+package com.ognavi.minhasfinancas.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtualizaStatusLoteDTO {
+
+	//informe os ids ou o usuário (com ano e mês opcionais) dos lançamentos a alterar
+	private List<Long> ids;
+	private Long usuario;
+	private Integer ano;
+	private Integer mes;
+	private String status;
+	
+}
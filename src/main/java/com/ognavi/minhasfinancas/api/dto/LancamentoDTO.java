@@ -2,6 +2,9 @@ package com.ognavi.minhasfinancas.api.dto;
 
 import java.math.BigDecimal;
 
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,4 +25,12 @@ public class LancamentoDTO {
 	private String tipo;
 	private String status;
 	
+	//utilizado nas consultas JPQL com "select new", que informam os enums
+	public LancamentoDTO(Long id, String descricao, Integer mes, Integer ano, BigDecimal valor, Long usuario,
+			TipoLancamento tipo, StatusLancamento status) {
+		this(id, descricao, mes, ano, valor, usuario, 
+				tipo == null ? null : tipo.name(), 
+				status == null ? null : status.name());
+	}
+	
 }
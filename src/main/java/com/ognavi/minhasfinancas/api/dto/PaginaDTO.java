@@ -0,0 +1,19 @@
+package com.ognavi.minhasfinancas.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+
+	private List<T> itens;
+	
+	//token opaco para buscar a próxima página, nulo quando não houver mais itens
+	private String proximaPagina;
+	
+}
@@ -0,0 +1,19 @@
+package com.ognavi.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteDTO {
+
+	//posição do lançamento na lista enviada
+	private Integer indice;
+	private Long id;
+	private String erro;
+	
+}
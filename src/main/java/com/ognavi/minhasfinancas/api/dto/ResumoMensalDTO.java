@@ -0,0 +1,31 @@
+package com.ognavi.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensalDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private String tipo;
+	private String status;
+	private BigDecimal total;
+	private Long quantidade;
+
+	//utilizado na consulta JPQL com "select new" do ResumoMensalRepository
+	public ResumoMensalDTO(Integer ano, Integer mes, TipoLancamento tipo, StatusLancamento status, BigDecimal total, Long quantidade) {
+		this(ano, mes, tipo.name(), status.name(), total, quantidade);
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.ognavi.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoPeriodoDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private String status;
+	private BigDecimal receitas;
+	private BigDecimal despesas;
+	private BigDecimal saldo;
+	
+	//utilizado pelas consultas agrupadas do LancamentoRepository
+	public SaldoPeriodoDTO(Integer ano, Integer mes, StatusLancamento status, BigDecimal receitas, BigDecimal despesas) {
+		this(ano, mes, status.name(), receitas, despesas, receitas.subtract(despesas));
+	}
+	
+	public SaldoPeriodoDTO(StatusLancamento status, BigDecimal receitas, BigDecimal despesas) {
+		this(null, null, status, receitas, despesas);
+	}
+	
+}
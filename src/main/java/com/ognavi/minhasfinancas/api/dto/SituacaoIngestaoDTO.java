@@ -0,0 +1,24 @@
+package com.ognavi.minhasfinancas.api.dto;
+
+import com.ognavi.minhasfinancas.model.enums.SituacaoIngestao;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SituacaoIngestaoDTO {
+
+	//identificador de acompanhamento devolvido no 202
+	private String id;
+	private SituacaoIngestao situacao;
+	private Long usuario;
+	//id do lançamento gravado
+	private Long lancamento;
+	private String erro;
+	
+}
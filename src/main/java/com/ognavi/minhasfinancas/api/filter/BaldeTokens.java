@@ -0,0 +1,40 @@
+package com.ognavi.minhasfinancas.api.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens sem bloqueio. Em vez da quantidade de tokens e do instante da última recarga, guarda apenas
+ * o instante em que o balde volta a ficar cheio, atualizado por compare-and-set: cada requisição adianta esse
+ * instante em um intervalo de recarga e é recusada quando ele passaria de capacidade intervalos à frente de agora.
+ */
+public final class BaldeTokens {
+
+	private final long intervaloNanos;
+	private final long capacidadeNanos;
+	private final AtomicLong cheioEm;
+
+	public BaldeTokens(long capacidade, double porSegundo, long agoraNanos) {
+		this.intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo);
+		this.capacidadeNanos = intervaloNanos * capacidade;
+		this.cheioEm = new AtomicLong(agoraNanos);
+	}
+
+	/**
+	 * @return 0 quando havia um token, senão o tempo em nanossegundos até o próximo
+	 */
+	public long consumir(long agoraNanos) {
+		while (true) {
+			long atual = cheioEm.get();
+			long proximo = Math.max(atual, agoraNanos) + intervaloNanos;
+			long falta = proximo - agoraNanos - capacidadeNanos;
+			if(falta > 0) {
+				return falta;
+			}
+			if(cheioEm.compareAndSet(atual, proximo)) {
+				return 0;
+			}
+		}
+	}
+
+}
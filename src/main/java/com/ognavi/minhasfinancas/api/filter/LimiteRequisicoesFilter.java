@@ -0,0 +1,214 @@
+package com.ognavi.minhasfinancas.api.filter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limita a taxa de requisições de cada cliente com um balde de tokens por usuário autenticado (ou por IP,
+ * sem token), com limites separados para leitura e escrita; o login é sempre limitado por IP.
+ * Com o pool de conexões sobrecarregado, recusa com 503 o que passar da concorrência permitida,
+ * antes de a requisição chegar a esperar por uma conexão.
+ * As decisões são contadas na métrica {@value #METRICA}, com as tags limite e resultado.
+ */
+public class LimiteRequisicoesFilter extends OncePerRequestFilter {
+
+	public static final String METRICA = "minhasfinancas.limite.decisoes";
+
+	private static final String AUTENTICAR = "/api/usuarios/autenticar";
+
+	private final Limite leitura;
+	private final Limite escrita;
+	private final Limite autenticacao;
+	private final int concorrenciaSobrecarga;
+	private final BooleanSupplier sobrecarga;
+
+	//baldes ociosos expiram, o balde seguinte começa cheio
+	private final Cache<String, BaldeTokens> baldes;
+	private final AtomicInteger emAndamento = new AtomicInteger();
+	private final Counter permitidasSobrecarga;
+	private final Counter recusadasSobrecarga;
+
+	public LimiteRequisicoesFilter(Limite leitura, Limite escrita, Limite autenticacao,
+			int concorrenciaSobrecarga, BooleanSupplier sobrecarga,
+			long tamanhoMaximoBaldes, long expiracaoMinutosBaldes, MeterRegistry registry) {
+		this.leitura = leitura.registrar(registry);
+		this.escrita = escrita.registrar(registry);
+		this.autenticacao = autenticacao.registrar(registry);
+		this.concorrenciaSobrecarga = concorrenciaSobrecarga;
+		this.sobrecarga = sobrecarga;
+		this.baldes = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximoBaldes)
+				.expireAfterAccess(expiracaoMinutosBaldes, TimeUnit.MINUTES)
+				.build();
+		this.permitidasSobrecarga = contador(registry, "sobrecarga", "permitida");
+		this.recusadasSobrecarga = contador(registry, "sobrecarga", "recusada");
+		Gauge.builder("minhasfinancas.limite.em-andamento", emAndamento, AtomicInteger::get)
+				.description("Requisições da API em andamento")
+				.register(registry);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		if(HttpMethod.OPTIONS.matches(request.getMethod())) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		Limite limite = limite(request);
+		long espera = baldes.get(limite.nome + ":" + cliente(request, limite),
+				chave -> new BaldeTokens(limite.capacidade, limite.porSegundo, System.nanoTime()))
+				.consumir(System.nanoTime());
+		if(espera > 0) {
+			limite.recusadas.increment();
+			recusar(response, HttpStatus.TOO_MANY_REQUESTS, espera, "Limite de requisições excedido, tente novamente em instantes.");
+			return;
+		}
+		limite.permitidas.increment();
+
+		boolean liberar = true;
+		try {
+			//sem sobrecarga no pool não há limite de concorrência
+			if(emAndamento.incrementAndGet() > concorrenciaSobrecarga && sobrecarga.getAsBoolean()) {
+				recusadasSobrecarga.increment();
+				recusar(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), "Serviço sobrecarregado, tente novamente em instantes.");
+				return;
+			}
+			permitidasSobrecarga.increment();
+			filterChain.doFilter(request, response);
+			//StreamingResponseBody e DeferredResult seguem depois do retorno: a vaga só é liberada ao concluir
+			if(request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new Liberacao());
+				liberar = false;
+			}
+		} finally {
+			if(liberar) {
+				emAndamento.decrementAndGet();
+			}
+		}
+	}
+
+	private Limite limite(HttpServletRequest request) {
+		String caminho = request.getRequestURI().substring(request.getContextPath().length());
+		if(HttpMethod.POST.matches(request.getMethod()) && caminho.equals(AUTENTICAR)) {
+			return autenticacao;
+		}
+		if(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+			return leitura;
+		}
+		return escrita;
+	}
+
+	//o id do token vem do TokenAutenticacaoFilter, que roda antes; sem token não há usuário confiável, vale o IP
+	private String cliente(HttpServletRequest request, Limite limite) {
+		Object idUsuario = request.getAttribute(TokenAutenticacaoFilter.ATRIBUTO_USUARIO);
+		if(limite != autenticacao && idUsuario != null) {
+			return "usuario:" + idUsuario;
+		}
+		return "ip:" + request.getRemoteAddr();
+	}
+
+	private void recusar(HttpServletResponse response, HttpStatus status, long esperaNanos, String mensagem) throws IOException {
+		long segundos = Math.max(1, (esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+		response.setStatus(status.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+		response.setContentType("text/plain;charset=UTF-8");
+		response.getOutputStream().write(mensagem.getBytes(StandardCharsets.UTF_8));
+	}
+
+	//o onTimeout e o onError são seguidos do onComplete, a vaga é liberada uma única vez
+	private final class Liberacao implements AsyncListener {
+
+		private final AtomicBoolean liberada = new AtomicBoolean();
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			liberar();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			liberar();
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			liberar();
+		}
+
+		//um novo startAsync descarta os listeners registrados
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+
+		private void liberar() {
+			if(liberada.compareAndSet(false, true)) {
+				emAndamento.decrementAndGet();
+			}
+		}
+	}
+
+	private static Counter contador(MeterRegistry registry, String limite, String resultado) {
+		return Counter.builder(METRICA)
+				.description("Decisões do limite de requisições")
+				.tag("limite", limite)
+				.tag("resultado", resultado)
+				.register(registry);
+	}
+
+	public static final class Limite {
+
+		private final String nome;
+		private final long capacidade;
+		private final double porSegundo;
+		private Counter permitidas;
+		private Counter recusadas;
+
+		/**
+		 * @param capacidade rajada máxima, em requisições
+		 * @param porSegundo taxa de recarga do balde
+		 */
+		public Limite(String nome, long capacidade, double porSegundo) {
+			//o balde divide pela taxa para calcular a espera
+			if(capacidade <= 0 || !(porSegundo > 0)) {
+				throw new IllegalArgumentException("O limite " + nome + " exige capacidade e por-segundo maiores que zero: "
+						+ capacidade + ", " + porSegundo + ".");
+			}
+			this.nome = nome;
+			this.capacidade = capacidade;
+			this.porSegundo = porSegundo;
+		}
+
+		private Limite registrar(MeterRegistry registry) {
+			permitidas = contador(registry, nome, "permitida");
+			recusadas = contador(registry, nome, "recusada");
+			return this;
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.ognavi.minhasfinancas.api.filter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.ognavi.minhasfinancas.service.TokenService;
+
+public class TokenAutenticacaoFilter extends OncePerRequestFilter {
+
+	//atributo da requisição com o id do usuário do token, lido pelos resources com @RequestAttribute
+	public static final String ATRIBUTO_USUARIO = "idUsuarioAutenticado";
+	
+	private static final String PREFIXO = "Bearer ";
+	
+	private final TokenService tokenService;
+	private final boolean obrigatorio;
+	
+	public TokenAutenticacaoFilter(TokenService tokenService, boolean obrigatorio) {
+		this.tokenService = tokenService;
+		this.obrigatorio = obrigatorio;
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		
+		String autorizacao = request.getHeader(HttpHeaders.AUTHORIZATION);
+		
+		if(autorizacao != null && autorizacao.startsWith(PREFIXO)) {
+			Optional<Long> idUsuario = tokenService.validarToken(autorizacao.substring(PREFIXO.length()).trim());
+			if(!idUsuario.isPresent()) {
+				negar(response, "Token inválido ou expirado!");
+				return;
+			}
+			request.setAttribute(ATRIBUTO_USUARIO, idUsuario.get());
+		} else if(obrigatorio && !publico(request)) {
+			negar(response, "Informe o token de autenticação!");
+			return;
+		}
+		
+		filterChain.doFilter(request, response);
+	}
+	
+	//cadastro e login não exigem token
+	private boolean publico(HttpServletRequest request) {
+		String caminho = request.getRequestURI().substring(request.getContextPath().length());
+		if(HttpMethod.OPTIONS.matches(request.getMethod())) {
+			return true;
+		}
+		return HttpMethod.POST.matches(request.getMethod())
+				&& (caminho.equals("/api/usuarios") || caminho.equals("/api/usuarios/autenticar"));
+	}
+	
+	private void negar(HttpServletResponse response, String mensagem) throws IOException {
+		response.setStatus(HttpStatus.UNAUTHORIZED.value());
+		response.setContentType("text/plain;charset=UTF-8");
+		response.getOutputStream().write(mensagem.getBytes(StandardCharsets.UTF_8));
+	}
+	
+}
@@ -0,0 +1,127 @@
+package com.ognavi.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.AbstractServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.filter.TokenAutenticacaoFilter;
+import com.ognavi.minhasfinancas.model.repository.LancamentoReativoRepository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Leitura reativa de lançamentos e saldo, publicada em /api/reativo (ver ReativoConfiguration).
+ * A busca é escrita como application/x-ndjson, um lançamento por linha, à medida que o cliente consome.
+ */
+@Component
+@RequiredArgsConstructor
+public class LancamentoReativoResource {
+
+	public static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson");
+
+	private static final String ACESSO_NEGADO = "Acesso negado aos lançamentos do usuário informado!";
+
+	private final LancamentoReativoRepository repository;
+
+	public Mono<ServerResponse> buscar(ServerRequest request) {
+		Long idUsuarioAutenticado = usuarioAutenticado(request);
+		Long idUsuario;
+		Integer ano;
+		Integer mes;
+		try {
+			idUsuario = request.queryParam("usuario").map(Long::valueOf).orElse(idUsuarioAutenticado);
+			ano = request.queryParam("ano").map(Integer::valueOf).orElse(null);
+			mes = request.queryParam("mes").map(Integer::valueOf).orElse(null);
+		} catch (NumberFormatException e) {
+			return mensagem(HttpStatus.BAD_REQUEST, "Informe um Usuário, Ano e Mês válidos!");
+		}
+
+		if(idUsuario == null) {
+			return mensagem(HttpStatus.BAD_REQUEST, "Informe um Usuário!");
+		}
+		if(acessoNegado(idUsuarioAutenticado, idUsuario)) {
+			return mensagem(HttpStatus.FORBIDDEN, ACESSO_NEGADO);
+		}
+
+		String descricao = request.queryParam("descricao").orElse(null);
+		return repository.existeUsuario(idUsuario).flatMap( existe -> existe
+				? ServerResponse.ok()
+						.contentType(APPLICATION_NDJSON)
+						.body(repository.buscar(idUsuario, descricao, ano, mes), LancamentoDTO.class)
+				: mensagem(HttpStatus.BAD_REQUEST, "Não foi possível realizar a consulta. Usuário não encontrado para o Id informado!") );
+	}
+
+	public Mono<ServerResponse> obterLancamento(ServerRequest request) {
+		Long id;
+		try {
+			id = Long.valueOf(request.pathVariable("id"));
+		} catch (NumberFormatException e) {
+			return ServerResponse.notFound().build();
+		}
+
+		Long idUsuarioAutenticado = usuarioAutenticado(request);
+		return repository.obterPorId(id)
+				.flatMap( lancamento -> acessoNegado(idUsuarioAutenticado, lancamento.getUsuario())
+						? mensagem(HttpStatus.FORBIDDEN, ACESSO_NEGADO)
+						: ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(lancamento) )
+				.switchIfEmpty( ServerResponse.notFound().build() );
+	}
+
+	public Mono<ServerResponse> obterSaldo(ServerRequest request) {
+		Long id;
+		try {
+			id = Long.valueOf(request.pathVariable("id"));
+		} catch (NumberFormatException e) {
+			return ServerResponse.notFound().build();
+		}
+
+		if(acessoNegado(usuarioAutenticado(request), id)) {
+			return ServerResponse.status(HttpStatus.FORBIDDEN).build();
+		}
+
+		return repository.existeUsuario(id).flatMap( existe -> existe
+				? repository.obterSaldo(id)
+						.defaultIfEmpty(BigDecimal.ZERO)
+						.flatMap( saldo -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(saldo) )
+				: ServerResponse.notFound().build() );
+	}
+
+	//o filtro de token roda na cadeia de filtros do servlet e grava o usuário como atributo da requisição
+	private Long usuarioAutenticado(ServerRequest request) {
+		ServerHttpRequest requisicao = request.exchange().getRequest();
+		if(!(requisicao instanceof AbstractServerHttpRequest)) {
+			return null;
+		}
+		Object nativa = ((AbstractServerHttpRequest) requisicao).getNativeRequest();
+		return Optional.of(nativa)
+				.filter(HttpServletRequest.class::isInstance)
+				.map( servlet -> ((HttpServletRequest) servlet).getAttribute(TokenAutenticacaoFilter.ATRIBUTO_USUARIO) )
+				.filter(Long.class::isInstance)
+				.map(Long.class::cast)
+				.orElse(null);
+	}
+
+	//com token, só é permitido acessar os lançamentos do próprio usuário
+	private boolean acessoNegado(Long idUsuarioAutenticado, Long idUsuario) {
+		return idUsuarioAutenticado != null && !idUsuarioAutenticado.equals(idUsuario);
+	}
+
+	private Mono<ServerResponse> mensagem(HttpStatus status, String mensagem) {
+		return ServerResponse.status(status)
+				.contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+				.bodyValue(mensagem);
+	}
+
+}
@@ -1,29 +1,57 @@
 package com.ognavi.minhasfinancas.api.resource;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.ognavi.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.ognavi.minhasfinancas.api.dto.AtualizaStatusLoteDTO;
 import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.PaginaDTO;
+import com.ognavi.minhasfinancas.api.dto.ResultadoLoteDTO;
+import com.ognavi.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.ognavi.minhasfinancas.api.filter.TokenAutenticacaoFilter;
+import com.ognavi.minhasfinancas.exception.ChaveIdempotenciaException;
+import com.ognavi.minhasfinancas.exception.FilaCheiaException;
+import com.ognavi.minhasfinancas.exception.IngestaoEncerradaException;
 import com.ognavi.minhasfinancas.exception.RegraNegocioException;
 import com.ognavi.minhasfinancas.model.entity.Lancamento;
 import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.FormatoExportacao;
 import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
 import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.service.ExportacaoService;
+import com.ognavi.minhasfinancas.service.IdempotenciaService;
+import com.ognavi.minhasfinancas.service.IngestaoLancamentoService;
 import com.ognavi.minhasfinancas.service.LancamentoService;
 import com.ognavi.minhasfinancas.service.UsuarioService;
+import com.ognavi.minhasfinancas.service.VersaoUsuarioService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -32,17 +60,53 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LancamentoResource {
 
+	private static final String ACESSO_NEGADO = "Acesso negado aos lançamentos do usuário informado!";
+	
+	//RFC 7240, usado pelo cliente para pedir a inclusão assíncrona
+	private static final String PREFER = "Prefer";
+	private static final String PREFERENCE_APPLIED = "Preference-Applied";
+	private static final String RESPOND_ASYNC = "respond-async";
+	
+	private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	private static final int TAMANHO_MAXIMO_CHAVE = 255;
+	
+	private static final Map<FormatoExportacao, MediaType> TIPOS_EXPORTACAO = new EnumMap<>(FormatoExportacao.class);
+	static {
+		TIPOS_EXPORTACAO.put(FormatoExportacao.CSV, new MediaType("text", "csv", StandardCharsets.UTF_8));
+		TIPOS_EXPORTACAO.put(FormatoExportacao.NDJSON, new MediaType("application", "x-ndjson"));
+		TIPOS_EXPORTACAO.put(FormatoExportacao.SMILE, new MediaType("application", "x-jackson-smile"));
+		TIPOS_EXPORTACAO.put(FormatoExportacao.CBOR, new MediaType("application", "cbor"));
+	}
+	
 	private final LancamentoService service;
 	private final UsuarioService usuarioService;
+	private final ExportacaoService exportacaoService;
+	private final VersaoUsuarioService versaoUsuarioService;
+	private final IngestaoLancamentoService ingestaoService;
+	private final IdempotenciaService idempotenciaService;
 	
 	@GetMapping
 	public ResponseEntity buscar(
 			@RequestParam(value = "descricao", required = false) String descricao,
 			@RequestParam(value = "mes", required = false) Integer mes,
 			@RequestParam(value = "ano", required = false) Integer ano,
-			@RequestParam("usuario") Long idUsuario
+			@RequestParam(value = "usuario", required = false) Long idUsuario,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "tamanho", required = false) Integer tamanho,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado
 			) {
 		
+		if(idUsuario == null) {
+			idUsuario = idUsuarioAutenticado;
+		}
+		if(idUsuario == null) {
+			return ResponseEntity.badRequest().body("Informe um Usuário!");
+		}
+		if(acessoNegado(idUsuarioAutenticado, idUsuario)) {
+			return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+		}
+		
 		Lancamento lancamentoFiltro = new Lancamento();
 		lancamentoFiltro.setDescricao(descricao);
 		lancamentoFiltro.setMes(mes);
@@ -55,75 +119,420 @@ public class LancamentoResource {
 			lancamentoFiltro.setUsuario(usuario.get());
 		}
 		
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-		return ResponseEntity.ok(lancamentos);
+		//a versão é lida antes da consulta: uma gravação concorrente deixa a ETag atrás do conteúdo, nunca à frente
+		//a mesma listagem pode sair em JSON, Smile ou CBOR conforme o Accept, por isso os caches variam por ele
+		String etag = versaoUsuarioService.obterEtag(idUsuario);
+		if(versaoUsuarioService.naoModificado(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+		}
+		
+		//paginação por cursor quando solicitada, mantendo a listagem completa para os clientes atuais
+		if(cursor != null || tamanho != null) {
+			try {
+				PaginaDTO<LancamentoDTO> pagina = service.buscar(lancamentoFiltro, cursor, tamanho);
+				return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(pagina);
+			} catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		}
+		
+		List<LancamentoDTO> lancamentos = service.buscar(lancamentoFiltro);
+		return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(lancamentos);
+	}
+	
+	@GetMapping("export")
+	public ResponseEntity<StreamingResponseBody> exportar(
+			@RequestParam(value = "usuario", required = false) Long usuario,
+			@RequestParam(value = "formato", required = false) String formato,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado
+			) {
+		
+		Long idUsuario = usuario != null ? usuario : idUsuarioAutenticado;
+		if(idUsuario == null) {
+			return ResponseEntity.badRequest().body(mensagem("Informe um Usuário!"));
+		}
+		if(acessoNegado(idUsuarioAutenticado, idUsuario)) {
+			return new ResponseEntity<>(mensagem(ACESSO_NEGADO), HttpStatus.FORBIDDEN);
+		}
+		
+		//o parâmetro formato tem precedência, sem ele o formato é negociado pelo Accept
+		FormatoExportacao formatoExportacao;
+		try {
+			formatoExportacao = formato == null ? formatoAceito(accept) : FormatoExportacao.valueOf(formato.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(mensagem("Formato inválido! Utilize csv, ndjson, smile ou cbor."));
+		}
+		
+		if(!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body(mensagem("Não foi possível realizar a exportação. Usuário não encontrado para o Id informado!"));
+		}
+		
+		//as linhas são escritas direto na resposta conforme são lidas do banco
+		StreamingResponseBody corpo = saida -> exportacaoService.exportarLancamentos(idUsuario, formatoExportacao, saida);
+		
+		return ResponseEntity.ok()
+				.contentType(TIPOS_EXPORTACAO.get(formatoExportacao))
+				.varyBy(HttpHeaders.ACCEPT)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"lancamentos." + formatoExportacao.name().toLowerCase() + "\"")
+				.body(corpo);
 	}
 	
 	@GetMapping("{id}")
-	public ResponseEntity obterLancamento( @PathVariable("id") Long id ) {
+	public ResponseEntity obterLancamento( 
+			@PathVariable("id") Long id,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		//o dono vem da ETag enviada pelo cliente, assim o 304 não precisa ler o lançamento
+		//a ETag só confere se for deste lançamento e da versão atual do dono: exclusões e transferências avançam a versão
+		Optional<Long> idDono = versaoUsuarioService.obterUsuarioDaEtag(ifNoneMatch)
+				.filter( idUsuario -> !acessoNegado(idUsuarioAutenticado, idUsuario) );
+		if(!idDono.isPresent()) {
+			idDono = service.obterIdUsuario(id);
+		}
+		if(!idDono.isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		
+		String etag = versaoUsuarioService.obterEtag(idDono.get(), id);
+		if(versaoUsuarioService.naoModificado(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+		}
+		
+		Long idDonoConsultado = idDono.get();
 		return service.obterPorId(id)
-				.map( lancamento -> new ResponseEntity(converter(lancamento), HttpStatus.OK) )
+				.map( lancamento -> {
+					if(acessoNegado(idUsuarioAutenticado, lancamento.getUsuario().getId())) {
+						return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+					}
+					//lançamento transferido para outro usuário: responde sem ETag, a próxima consulta gera a do novo dono
+					if(!idDonoConsultado.equals(lancamento.getUsuario().getId())) {
+						return ResponseEntity.ok(converter(lancamento));
+					}
+					return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(converter(lancamento));
+				})
 				.orElseGet( () -> new ResponseEntity(HttpStatus.NOT_FOUND) );
 	}
 	
 	
 	@PostMapping //cria um recurso no servidor que ainda não foi criado
-	public ResponseEntity salvar( @RequestBody LancamentoDTO dto ) {
+	public ResponseEntity salvar( 
+			@RequestBody LancamentoDTO dto,
+			@RequestHeader(value = PREFER, required = false) String prefer,
+			@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chaveIdempotencia,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		if(dto.getUsuario() == null) {
+			dto.setUsuario(idUsuarioAutenticado);
+		}
+		if(acessoNegado(idUsuarioAutenticado, dto.getUsuario())) {
+			return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+		}
+		
+		return idempotente(chaveIdempotencia, "salvar", dono(idUsuarioAutenticado, dto.getUsuario()), dto, () -> {
+			try {
+				Lancamento entidade = converter(dto);
+				//Prefer: respond-async só é atendido com a inclusão assíncrona habilitada, senão a inclusão segue síncrona
+				if(ingestaoService.isHabilitada() && respostaAssincrona(prefer)) {
+					return enfileirar(entidade);
+				}
+				entidade = service.salvar(entidade);
+				return new ResponseEntity(entidade, HttpStatus.CREATED);
+			} catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		});
+	}
+	
+	@GetMapping("ingestao/{id}")
+	public ResponseEntity obterSituacaoIngestao( 
+			@PathVariable("id") String id,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		return ingestaoService.obterSituacao(id)
+				.map( situacao -> acessoNegado(idUsuarioAutenticado, situacao.getUsuario())
+						? new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN)
+						: ResponseEntity.ok(situacao) )
+				.orElseGet( () -> new ResponseEntity(HttpStatus.NOT_FOUND) );
+	}
+	
+	@PostMapping("lote") //cria vários lançamentos em uma única transação
+	public ResponseEntity salvarLote( 
+			@RequestBody List<LancamentoDTO> dtos,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		for (LancamentoDTO dto : dtos) {
+			if(dto.getUsuario() == null) {
+				dto.setUsuario(idUsuarioAutenticado);
+			}
+			if(acessoNegado(idUsuarioAutenticado, dto.getUsuario())) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
+		}
+		
+		//cada usuário distinto é consultado uma única vez
+		Map<Long, Optional<Usuario>> usuarios = new HashMap<>();
+		Function<Long, Optional<Usuario>> buscarUsuario = id -> usuarios.computeIfAbsent(id, usuarioService::obterPorId);
+		
+		List<ResultadoLoteDTO> resultados = new ArrayList<>(dtos.size());
+		List<Lancamento> lancamentos = new ArrayList<>(dtos.size());
+		List<Integer> indices = new ArrayList<>(dtos.size());
+		
+		for (int i = 0; i < dtos.size(); i++) {
+			try {
+				Lancamento lancamento = converter(dtos.get(i), buscarUsuario);
+				lancamento.setId(null);
+				lancamentos.add(lancamento);
+				indices.add(i);
+				resultados.add(null);
+			} catch (RegraNegocioException e) {
+				resultados.add(ResultadoLoteDTO.builder().indice(i).erro(e.getMessage()).build());
+			} catch (IllegalArgumentException e) {
+				resultados.add(ResultadoLoteDTO.builder().indice(i).erro("Informe um Tipo e um Status válidos!").build());
+			}
+		}
+		
 		try {
-			Lancamento entidade = converter(dto);
-			entidade = service.salvar(entidade);
-			return new ResponseEntity(entidade, HttpStatus.CREATED);
+			Map<Integer, String> erros = service.salvarLote(lancamentos);
+			for (int j = 0; j < lancamentos.size(); j++) {
+				int indice = indices.get(j);
+				resultados.set(indice, ResultadoLoteDTO.builder()
+						.indice(indice)
+						.id(erros.containsKey(j) ? null : lancamentos.get(j).getId())
+						.erro(erros.get(j))
+						.build());
+			}
+			return ResponseEntity.ok(resultados);
 		} catch (RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
 		}
 	}
 	
 	@PutMapping("{id}") //atualizar um recurso que esta no servidor
-	public ResponseEntity atualizar( @PathVariable("id") Long id, @RequestBody LancamentoDTO dto ) {
-		return service.obterPorId(id).map( entity -> {
+	public ResponseEntity atualizar( 
+			@PathVariable("id") Long id, 
+			@RequestBody LancamentoDTO dto,
+			@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chaveIdempotencia,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		if(dto.getUsuario() == null) {
+			dto.setUsuario(idUsuarioAutenticado);
+		}
+		
+		return idempotente(chaveIdempotencia, "atualizar:" + id, dono(idUsuarioAutenticado, dto.getUsuario()), dto, () -> {
+			if(acessoNegado(idUsuarioAutenticado, dto.getUsuario())) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
+			
 			try {
 				Lancamento lancamento = converter(dto);
-				lancamento.setId(entity.getId());
-				service.atualizar(lancamento);
+				lancamento.setId(id);
+				//com token, o UPDATE só alcança os lançamentos do próprio usuário
+				if(service.atualizar(lancamento, idUsuarioAutenticado) == 0) {
+					return new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.NOT_FOUND);
+				}
 				return ResponseEntity.ok(lancamento);
 			} catch (RegraNegocioException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
 			}
-		}).orElseGet( () ->
-			new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST) );
+		});
 	}
 	
-	@PutMapping("{id}/atualiza-status") //atualizar um recurso que esta no servidor
-	public ResponseEntity atualizarStatus( @PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto ) {
-		return service.obterPorId(id).map( entity -> {
-			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
+	@PatchMapping("{id}")
+	public ResponseEntity atualizarParcialmente( 
+			@PathVariable("id") Long id, 
+			@RequestBody LancamentoDTO dto,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		//o usuário não é alterado, quando enviado apenas restringe a alteração aos lançamentos dele
+		Long idUsuario = dto.getUsuario() == null ? idUsuarioAutenticado : dto.getUsuario();
+		if(acessoNegado(idUsuarioAutenticado, idUsuario)) {
+			return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+		}
+		
+		try {
+			Lancamento alteracoes = Lancamento.builder()
+					.id(id)
+					.descricao(dto.getDescricao())
+					.ano(dto.getAno())
+					.mes(dto.getMes())
+					.valor(dto.getValor())
+					.tipo(dto.getTipo() == null ? null : TipoLancamento.valueOf(dto.getTipo()))
+					.status(dto.getStatus() == null ? null : StatusLancamento.valueOf(dto.getStatus()))
+					.build();
 			
-			if(statusSelecionado == null) {
-				return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento. Envie um Status válido!");
+			if(service.atualizarParcialmente(alteracoes, idUsuario) == 0) {
+				return new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.NOT_FOUND);
 			}
+			return new ResponseEntity<>( HttpStatus.NO_CONTENT );
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Informe um Tipo e um Status válidos!");
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	@PutMapping("atualiza-status")
+	public ResponseEntity atualizarStatusEmLote( 
+			@RequestBody AtualizaStatusLoteDTO dto,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		//com token, a alteração por ids fica restrita aos lançamentos do próprio usuário
+		Long idUsuario = dto.getUsuario() == null ? idUsuarioAutenticado : dto.getUsuario();
+		if(acessoNegado(idUsuarioAutenticado, idUsuario)) {
+			return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+		}
+		
+		Lancamento lancamentoFiltro = Lancamento.builder()
+				.usuario(idUsuario == null ? null : Usuario.builder().id(idUsuario).build())
+				.ano(dto.getAno())
+				.mes(dto.getMes())
+				.build();
+		
+		try {
+			StatusLancamento status = dto.getStatus() == null ? null : StatusLancamento.valueOf(dto.getStatus());
+			int atualizados = service.atualizarStatusEmLote(dto.getIds(), lancamentoFiltro, status);
+			return ResponseEntity.ok(atualizados);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Não foi possível atualizar o status dos lançamentos. Envie um Status válido!");
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	@PutMapping("{id}/atualiza-status") //atualizar um recurso que esta no servidor
+	public ResponseEntity atualizarStatus( 
+			@PathVariable("id") Long id, 
+			@RequestBody AtualizaStatusDTO dto,
+			@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chaveIdempotencia,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		//sem token e sem usuário no corpo, as chaves ficam no espaço do dono do lançamento
+		Long idDono = chaveIdempotencia == null || idUsuarioAutenticado != null
+				? idUsuarioAutenticado : service.obterIdUsuario(id).orElse(null);
+		return idempotente(chaveIdempotencia, "atualizarStatus:" + id, idDono, dto, () ->
+			service.obterPorId(id).map( entity -> {
+				if(acessoNegado(idUsuarioAutenticado, entity.getUsuario().getId())) {
+					return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+				}
+			
+				StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
+			
+				if(statusSelecionado == null) {
+					return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento. Envie um Status válido!");
+				}
 
-			try {
-				entity.setStatus(statusSelecionado);
-				service.atualizar(entity);
-				return ResponseEntity.ok(entity);
-			}catch (RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
-			}
+				try {
+					entity.setStatus(statusSelecionado);
+					service.atualizar(entity);
+					return ResponseEntity.ok(entity);
+				}catch (RegraNegocioException e) {
+					return ResponseEntity.badRequest().body(e.getMessage());
+				}
 		
-		}).orElseGet( () ->
-			new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST) );
+			}).orElseGet( () ->
+				new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST) ) );
 	}
 	
 	@DeleteMapping("{id}") //atualizar um recurso que esta no servidor
-	public ResponseEntity deletar( @PathVariable("id") Long id ) {
-		return service.obterPorId(id).map( entidade -> {
-			service.deletar(entidade);
-			return new ResponseEntity<>( HttpStatus.NO_CONTENT );
-		}).orElseGet( () ->
-		new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST));
+	public ResponseEntity deletar( 
+			@PathVariable("id") Long id,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado ) {
+		//com token, o DELETE só alcança os lançamentos do próprio usuário
+		if(service.deletar(id, idUsuarioAutenticado) == 0) {
+			return new ResponseEntity("Lançamento não encontrado na base de dados!", HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<>( HttpStatus.NO_CONTENT );
+	}
+	
+	//sem a chave a operação executa normalmente; com ela, as repetições do mesmo usuário recebem a resposta original
+	private ResponseEntity idempotente(String chave, String operacao, Long idUsuario, Object requisicao, Supplier<ResponseEntity> execucao) {
+		if(chave == null) {
+			return execucao.get();
+		}
+		if(chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+			return ResponseEntity.badRequest().body("Informe uma chave de idempotência com até " + TAMANHO_MAXIMO_CHAVE + " caracteres!");
+		}
+		
+		try {
+			return idempotenciaService.executar(operacao + ":" + idUsuario + ":" + chave, requisicao, execucao, this::reaproveitavel);
+		} catch (ChaveIdempotenciaException e) {
+			return new ResponseEntity(e.getMessage(), e.isEmAndamento() ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY);
+		}
+	}
+	
+	//sobrecarga (429) e erros do servidor não ficam guardados, a nova tentativa executa de novo
+	private boolean reaproveitavel(ResponseEntity resposta) {
+		return resposta.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS && !resposta.getStatusCode().is5xxServerError();
+	}
+	
+	//202 com o id de acompanhamento, 429 quando a fila está cheia ou 503 durante o encerramento
+	private ResponseEntity enfileirar(Lancamento lancamento) {
+		try {
+			SituacaoIngestaoDTO situacao = ingestaoService.enfileirar(lancamento);
+			return ResponseEntity.accepted()
+					.location(URI.create("/api/lancamentos/ingestao/" + situacao.getId()))
+					.header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+					.body(situacao);
+		} catch (FilaCheiaException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getSegundosParaNovaTentativa()))
+					.body(e.getMessage());
+		} catch (IngestaoEncerradaException e) {
+			return new ResponseEntity(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+		}
+	}
+	
+	private boolean respostaAssincrona(String prefer) {
+		if(prefer == null) {
+			return false;
+		}
+		for (String preferencia : prefer.split(",")) {
+			String nome = preferencia.split(";")[0].trim();
+			if(nome.equalsIgnoreCase(RESPOND_ASYNC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	//primeiro formato aceito pelo cliente, na ordem de preferência do Accept; CSV quando nenhum for aceito
+	private FormatoExportacao formatoAceito(String accept) {
+		if(accept == null) {
+			return FormatoExportacao.CSV;
+		}
+		
+		List<MediaType> aceitos;
+		try {
+			aceitos = MediaType.parseMediaTypes(accept);
+		} catch (InvalidMediaTypeException e) {
+			return FormatoExportacao.CSV;
+		}
+		MediaType.sortBySpecificityAndQuality(aceitos);
+		
+		for (MediaType aceito : aceitos) {
+			if(aceito.getQualityValue() == 0) {
+				continue;
+			}
+			for (Map.Entry<FormatoExportacao, MediaType> tipo : TIPOS_EXPORTACAO.entrySet()) {
+				if(aceito.includes(tipo.getValue())) {
+					return tipo.getKey();
+				}
+			}
+		}
+		return FormatoExportacao.CSV;
+	}
+	
+	//usuário das chaves de idempotência: o do token, ou sem token o informado na requisição,
+	//para que clientes anônimos de usuários diferentes não dividam as mesmas chaves
+	private Long dono(Long idUsuarioAutenticado, Long idUsuario) {
+		return idUsuarioAutenticado != null ? idUsuarioAutenticado : idUsuario;
 	}
 	
-	private LancamentoDTO converter(Lancamento lancamento) {
+	//com token, só é permitido acessar os lançamentos do próprio usuário
+	private boolean acessoNegado(Long idUsuarioAutenticado, Long idUsuario) {
+		return idUsuarioAutenticado != null && !idUsuarioAutenticado.equals(idUsuario);
+	}
+	
+	private StreamingResponseBody mensagem(String mensagem) {
+		return saida -> saida.write(mensagem.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	//visibilidade de pacote para os benchmarks em src/jmh
+	LancamentoDTO converter(Lancamento lancamento) {
 		return LancamentoDTO.builder()
 					.id(lancamento.getId())
 					.descricao(lancamento.getDescricao())
@@ -136,7 +545,11 @@ public class LancamentoResource {
 					.build();
 	}
 	
-	private Lancamento converter(LancamentoDTO dto) {
+	Lancamento converter(LancamentoDTO dto) {
+		return converter(dto, usuarioService::obterPorId);
+	}
+	
+	Lancamento converter(LancamentoDTO dto, Function<Long, Optional<Usuario>> buscarUsuario) {
 		Lancamento lancamento = new Lancamento();
 		lancamento.setId(dto.getId());
 		lancamento.setDescricao(dto.getDescricao());
@@ -144,8 +557,12 @@ public class LancamentoResource {
 		lancamento.setMes(dto.getMes());
 		lancamento.setValor(dto.getValor());
 		
-		Usuario usuario = usuarioService
-			.obterPorId(dto.getUsuario())
+		if(dto.getUsuario() == null) {
+			throw new RegraNegocioException("Informe um Usuário!");
+		}
+		
+		Usuario usuario = buscarUsuario
+			.apply(dto.getUsuario())
 			.orElseThrow( () -> new RegraNegocioException("Usuário não encontrado para o Id informado!"));
 		
 		lancamento.setUsuario(usuario);
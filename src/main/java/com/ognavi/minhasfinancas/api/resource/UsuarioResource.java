@@ -1,23 +1,34 @@
 package com.ognavi.minhasfinancas.api.resource;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
 import com.ognavi.minhasfinancas.api.dto.UsuarioDTO;
+import com.ognavi.minhasfinancas.api.filter.TokenAutenticacaoFilter;
 import com.ognavi.minhasfinancas.exception.ErroAutenticacao;
 import com.ognavi.minhasfinancas.exception.RegraNegocioException;
 import com.ognavi.minhasfinancas.model.entity.Usuario;
 import com.ognavi.minhasfinancas.service.LancamentoService;
+import com.ognavi.minhasfinancas.service.ResumoMensalService;
+import com.ognavi.minhasfinancas.service.TokenService;
 import com.ognavi.minhasfinancas.service.UsuarioService;
+import com.ognavi.minhasfinancas.service.VersaoUsuarioService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,12 +39,19 @@ public class UsuarioResource {
 	
 	private final UsuarioService service;
 	private final LancamentoService lancamentoService;
+	private final ResumoMensalService resumoMensalService;
+	private final TokenService tokenService;
+	private final VersaoUsuarioService versaoUsuarioService;
 	
 	@PostMapping("/autenticar")
 	public ResponseEntity autenticar( @RequestBody UsuarioDTO dto ) {
 		try {
 			Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
-			return ResponseEntity.ok(usuarioAutenticado);
+			
+			//o token devolvido no header dispensa novas verificações de senha nas próximas requisições
+			return ResponseEntity.ok()
+					.header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.gerarToken(usuarioAutenticado))
+					.body(usuarioAutenticado);
 		}catch (ErroAutenticacao e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
 		}
@@ -55,15 +73,65 @@ public class UsuarioResource {
 	}
 	
 	@GetMapping("{id}/saldo")
-	public ResponseEntity obterSaldo( @PathVariable("id") Long id ) {
+	public ResponseEntity obterSaldo( 
+			@PathVariable("id") Long id,
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "mes", required = false) Integer mes,
+			@RequestParam(value = "agrupar", required = false) String agrupar,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado
+			) {
+		if(idUsuarioAutenticado != null && !idUsuarioAutenticado.equals(id)) {
+			return new ResponseEntity( HttpStatus.FORBIDDEN );
+		}
+		
 		Optional<Usuario> usuario = service.obterPorId(id);
 		
 		if(!usuario.isPresent()) {
 			return new ResponseEntity( HttpStatus.NOT_FOUND );
 		}
 		
+		//sem lançamentos gravados desde a ETag do cliente, as somas não são executadas
+		String etag = versaoUsuarioService.obterEtag(id);
+		if(versaoUsuarioService.naoModificado(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+		}
+		
+		//com filtro de período ou agrupamento devolve o detalhamento, senão o saldo total
+		if(ano != null || mes != null || agrupar != null) {
+			if(agrupar != null && !agrupar.equals("mes")) {
+				return ResponseEntity.badRequest().body("Agrupamento inválido! Utilize agrupar=mes.");
+			}
+			
+			List<SaldoPeriodoDTO> saldos = lancamentoService.obterSaldoPorPeriodo(id, ano, mes, agrupar != null);
+			return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(saldos);
+		}
+		
 		BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
-		return ResponseEntity.ok(saldo);
+		return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(saldo);
+	}
+	
+	//totais por mês, tipo e status lidos da tabela resumo_mensal, por padrão dos últimos 24 meses
+	@GetMapping("{id}/resumo")
+	public ResponseEntity obterResumo(
+			@PathVariable("id") Long id,
+			@RequestParam(value = "meses", required = false) Integer meses,
+			@RequestAttribute(value = TokenAutenticacaoFilter.ATRIBUTO_USUARIO, required = false) Long idUsuarioAutenticado
+			) {
+		if(idUsuarioAutenticado != null && !idUsuarioAutenticado.equals(id)) {
+			return new ResponseEntity( HttpStatus.FORBIDDEN );
+		}
+		
+		if(!service.obterPorId(id).isPresent()) {
+			return new ResponseEntity( HttpStatus.NOT_FOUND );
+		}
+		
+		try {
+			List<ResumoMensalDTO> resumo = resumoMensalService.obterResumo(id, meses);
+			return ResponseEntity.ok(resumo);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 	
 }
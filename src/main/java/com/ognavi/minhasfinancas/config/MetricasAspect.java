@@ -0,0 +1,70 @@
+package com.ognavi.minhasfinancas.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Registra o tempo de cada chamada aos serviços e repositórios no timer
+ * {@value #METRICA}, com as tags camada, classe, metodo e excecao.
+ */
+@Aspect
+@Component
+public class MetricasAspect {
+
+	public static final String METRICA = "minhasfinancas.chamadas";
+	
+	private static final String PACOTE = "com.ognavi.minhasfinancas";
+	
+	private final MeterRegistry registry;
+	
+	public MetricasAspect(MeterRegistry registry) {
+		this.registry = registry;
+	}
+	
+	@Around("execution(public * com.ognavi.minhasfinancas.service.impl.*ServiceImpl.*(..))")
+	public Object medirServico(ProceedingJoinPoint joinPoint) throws Throwable {
+		return medir(joinPoint, "servico");
+	}
+	
+	//os repositórios são proxies do Spring Data, os métodos herdados (findById, save...) também são medidos
+	@Around("target(org.springframework.data.repository.Repository)")
+	public Object medirRepositorio(ProceedingJoinPoint joinPoint) throws Throwable {
+		return medir(joinPoint, "repositorio");
+	}
+	
+	private Object medir(ProceedingJoinPoint joinPoint, String camada) throws Throwable {
+		Timer.Sample amostra = Timer.start(registry);
+		String excecao = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			excecao = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			amostra.stop(Timer.builder(METRICA)
+					.tag("camada", camada)
+					.tag("classe", classe(joinPoint.getTarget()))
+					.tag("metodo", joinPoint.getSignature().getName())
+					.tag("excecao", excecao)
+					.register(registry));
+		}
+	}
+	
+	//nome da interface da aplicação (LancamentoService, LancamentoRepository) em vez da classe do proxy
+	private static String classe(Object alvo) {
+		for (Class<?> interfaceImplementada : ClassUtils.getAllInterfaces(alvo)) {
+			if(interfaceImplementada.getName().startsWith(PACOTE)) {
+				return interfaceImplementada.getSimpleName();
+			}
+		}
+		return AopUtils.getTargetClass(alvo).getSimpleName();
+	}
+	
+}
@@ -0,0 +1,76 @@
+package com.ognavi.minhasfinancas.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Acompanha a espera média por conexão dos pools Hikari a partir das métricas hikaricp.connections.acquire,
+ * na janela entre duas verificações. O pool está sobrecarregado quando a espera passa do limite ou quando há
+ * threads aguardando e nenhuma conexão foi entregue na janela.
+ */
+@Component
+public class MonitorPoolConexoes {
+
+	private static final Logger log = LoggerFactory.getLogger(MonitorPoolConexoes.class);
+
+	private final MeterRegistry registry;
+	private final double esperaMaximaMs;
+
+	private double esperaTotalAnteriorMs;
+	private long conexoesAnteriores;
+	private volatile double esperaMediaMs;
+	private volatile boolean sobrecarregado;
+
+	public MonitorPoolConexoes(MeterRegistry registry,
+			@Value("${minhasfinancas.carga.espera-pool-maxima-ms:200}") double esperaMaximaMs) {
+		this.registry = registry;
+		this.esperaMaximaMs = esperaMaximaMs;
+		Gauge.builder("minhasfinancas.carga.espera-pool", this, MonitorPoolConexoes::getEsperaMediaMs)
+				.description("Espera média por conexão na última janela")
+				.baseUnit("milliseconds")
+				.register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${minhasfinancas.carga.verificacao-ms:1000}")
+	public void verificar() {
+		double esperaTotalMs = 0;
+		long conexoes = 0;
+		for (Timer timer : registry.find("hikaricp.connections.acquire").timers()) {
+			esperaTotalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+			conexoes += timer.count();
+		}
+		double aguardando = registry.find("hikaricp.connections.pending").gauges().stream()
+				.mapToDouble(Gauge::value)
+				.sum();
+
+		long entregues = conexoes - conexoesAnteriores;
+		esperaMediaMs = entregues > 0 ? (esperaTotalMs - esperaTotalAnteriorMs) / entregues : 0;
+		esperaTotalAnteriorMs = esperaTotalMs;
+		conexoesAnteriores = conexoes;
+
+		boolean anterior = sobrecarregado;
+		sobrecarregado = esperaMediaMs > esperaMaximaMs || (entregues == 0 && aguardando > 0);
+		if(sobrecarregado != anterior) {
+			log.warn(sobrecarregado ? "Pool de conexões sobrecarregado, espera média de {} ms."
+					: "Pool de conexões normalizado, espera média de {} ms.", Math.round(esperaMediaMs));
+		}
+	}
+
+	public boolean isSobrecarregado() {
+		return sobrecarregado;
+	}
+
+	public double getEsperaMediaMs() {
+		return esperaMediaMs;
+	}
+
+}
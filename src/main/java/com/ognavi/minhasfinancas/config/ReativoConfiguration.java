@@ -0,0 +1,110 @@
+package com.ognavi.minhasfinancas.config;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
+import static org.springframework.web.reactive.function.server.RouterFunctions.nest;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ognavi.minhasfinancas.api.resource.LancamentoReativoResource;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * Leitura reativa publicada em /api/reativo. As rotas funcionais do WebFlux rodam no mesmo Tomcat
+ * da API, como um servlet assíncrono com I/O não bloqueante (Servlet 3.1): cliente lento não
+ * prende thread e a demanda do cliente chega até o cursor do R2DBC.
+ */
+@Configuration
+public class ReativoConfiguration {
+
+	public static final String CAMINHO = "/api/reativo";
+
+	//mesmas credenciais do datasource JDBC, a URL r2dbc aponta para o mesmo banco
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool connectionFactory(
+			@Value("${minhasfinancas.r2dbc.url}") String url,
+			@Value("${spring.datasource.username}") String usuario,
+			@Value("${spring.datasource.password}") String senha,
+			@Value("${minhasfinancas.r2dbc.pool.tamanho-maximo:10}") int tamanhoMaximo) {
+
+		ConnectionFactoryOptions opcoes = ConnectionFactoryOptions.parse(url).mutate()
+				.option(ConnectionFactoryOptions.USER, usuario)
+				.option(ConnectionFactoryOptions.PASSWORD, senha)
+				.build();
+
+		ConnectionPoolConfiguration configuracao = ConnectionPoolConfiguration.builder(ConnectionFactories.get(opcoes))
+				.name("minhasfinancas-r2dbc")
+				.initialSize(1)
+				.maxSize(tamanhoMaximo)
+				.maxIdleTime(Duration.ofMinutes(10))
+				.build();
+		return new ConnectionPool(configuracao);
+	}
+
+	//as rotas casam com o caminho completo da requisição, por isso ficam aninhadas sob o mapeamento do servlet
+	@Bean
+	public RouterFunction<ServerResponse> rotasReativas(LancamentoReativoResource resource) {
+		return nest(path(CAMINHO),
+				route(GET("/lancamentos"), resource::buscar)
+				.andRoute(GET("/lancamentos/{id}"), resource::obterLancamento)
+				.andRoute(GET("/usuarios/{id}/saldo"), resource::obterSaldo));
+	}
+
+	@Bean
+	public ServletRegistrationBean<ServletHttpHandlerAdapter> reativoServlet(
+			RouterFunction<ServerResponse> rotasReativas, ObjectMapper objectMapper) {
+
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper,
+				MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), LancamentoReativoResource.APPLICATION_NDJSON);
+		encoder.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, LancamentoReativoResource.APPLICATION_NDJSON));
+
+		HandlerStrategies estrategias = HandlerStrategies.builder()
+				.codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(encoder))
+				.webFilter(corsWebFilter())
+				.build();
+
+		HttpHandler handler = RouterFunctions.toHttpHandler(rotasReativas, estrategias);
+		ServletRegistrationBean<ServletHttpHandlerAdapter> registro =
+				new ServletRegistrationBean<>(new ServletHttpHandlerAdapter(handler), CAMINHO + "/*");
+		registro.setName("reativo");
+		registro.setAsyncSupported(true);
+		registro.setLoadOnStartup(1);
+		return registro;
+	}
+
+	//mesma política de CORS do WebConfiguration, que só vale para o DispatcherServlet
+	private CorsWebFilter corsWebFilter() {
+		CorsConfiguration cors = new CorsConfiguration().applyPermitDefaultValues();
+		cors.setAllowedMethods(Arrays.asList("GET", "OPTIONS"));
+		cors.addExposedHeader(HttpHeaders.AUTHORIZATION);
+
+		UrlBasedCorsConfigurationSource origem = new UrlBasedCorsConfigurationSource();
+		origem.registerCorsConfiguration("/**", cors);
+		return new CorsWebFilter(origem);
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.ognavi.minhasfinancas.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ativada quando minhasfinancas.datasource.replicas.urls é informado: o primário continua vindo de
+ * spring.datasource.* e cada réplica usa as mesmas credenciais e configurações do Hikari.
+ */
+@Configuration
+@ConditionalOnExpression("!'${minhasfinancas.datasource.replicas.urls:}'.trim().isEmpty()")
+public class ReplicaLeituraConfiguration {
+
+	private static final String PREFIXO_HIKARI = "spring.datasource.hikari";
+
+	private final Environment environment;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	public ReplicaLeituraConfiguration(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+		this.environment = environment;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Bean
+	public RoteamentoDataSource roteamentoDataSource(
+			DataSourceProperties properties,
+			@Value("${minhasfinancas.datasource.replicas.urls}") String urls,
+			@Value("${minhasfinancas.datasource.replicas.leitura-propria-segundos:5}") long leituraPropriaSegundos,
+			@Value("${minhasfinancas.datasource.replicas.timeout-conexao-ms:1000}") long timeoutConexaoMillis) {
+
+		HikariDataSource primario = criarPool(properties, properties.determineUrl());
+		if(primario.getPoolName() == null) {
+			primario.setPoolName("minhasfinancas");
+		}
+
+		List<DataSource> replicas = new ArrayList<>();
+		String[] enderecos = StringUtils.commaDelimitedListToStringArray(urls);
+		for (int i = 0; i < enderecos.length; i++) {
+			HikariDataSource replica = criarPool(properties, enderecos[i].trim());
+			replica.setPoolName(primario.getPoolName() + "-replica-" + (i + 1));
+			replica.setReadOnly(true);
+			//réplica fora do ar não impede a subida da aplicação e falha rápido para cair no primário
+			replica.setInitializationFailTimeout(-1);
+			replica.setConnectionTimeout(timeoutConexaoMillis);
+			replicas.add(replica);
+		}
+
+		return new RoteamentoDataSource(primario, replicas, leituraPropriaSegundos * 1000,
+				(int) Math.max(1, timeoutConexaoMillis / 1000));
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+		return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+	}
+
+	@Bean
+	public HealthIndicator replicasLeituraHealthIndicator(RoteamentoDataSource roteamentoDataSource) {
+		//as leituras continuam sendo atendidas pelo primário, réplicas fora do ar só aparecem nos detalhes
+		return () -> Health.up().withDetails(roteamentoDataSource.situacaoReplicas()).build();
+	}
+
+	private HikariDataSource criarPool(DataSourceProperties properties, String url) {
+		HikariDataSource pool = properties.initializeDataSourceBuilder()
+				.type(HikariDataSource.class)
+				.url(url)
+				.build();
+		Binder.get(environment).bind(PREFIXO_HIKARI, Bindable.ofInstance(pool));
+		meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+		return pool;
+	}
+
+}
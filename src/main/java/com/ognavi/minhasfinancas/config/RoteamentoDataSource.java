@@ -0,0 +1,190 @@
+package com.ognavi.minhasfinancas.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.ognavi.minhasfinancas.api.filter.TokenAutenticacaoFilter;
+
+/**
+ * Envia as transações somente leitura para as réplicas e todo o resto para o primário.
+ * Deve ficar atrás de um LazyConnectionDataSourceProxy, para que a conexão só seja obtida
+ * depois que a transação já foi marcada como somente leitura.
+ * As leituras do usuário autenticado vão para o primário durante a janela aberta por {@link #registrarEscrita(Collection)}.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(RoteamentoDataSource.class);
+
+	static final String PRIMARIO = "primario";
+
+	private final DataSource primario;
+	private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+	private final List<String> chavesReplicas;
+	private final Set<String> indisponiveis = ConcurrentHashMap.newKeySet();
+	private final Map<Long, Long> ultimaEscrita = new ConcurrentHashMap<>();
+	private final AtomicInteger proxima = new AtomicInteger();
+	private final long janelaLeituraPropriaMillis;
+	private final int timeoutVerificacaoSegundos;
+
+	public RoteamentoDataSource(DataSource primario, List<DataSource> replicas,
+			long janelaLeituraPropriaMillis, int timeoutVerificacaoSegundos) {
+		this.primario = primario;
+		for (int i = 0; i < replicas.size(); i++) {
+			this.replicas.put("replica-" + (i + 1), replicas.get(i));
+		}
+		this.chavesReplicas = new ArrayList<>(this.replicas.keySet());
+		this.janelaLeituraPropriaMillis = janelaLeituraPropriaMillis;
+		this.timeoutVerificacaoSegundos = timeoutVerificacaoSegundos;
+
+		Map<Object, Object> alvos = new HashMap<>(this.replicas);
+		alvos.put(PRIMARIO, primario);
+		setTargetDataSources(alvos);
+		setDefaultTargetDataSource(primario);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARIO;
+		}
+
+		//o usuário que acabou de gravar lê do primário até a réplica alcançar a escrita
+		if(dentroDaJanelaDeEscrita()) {
+			return PRIMARIO;
+		}
+
+		return proximaReplicaDisponivel().orElse(PRIMARIO);
+	}
+
+	//réplica fora do ar: a leitura é atendida pelo primário e a réplica sai do rodízio até a próxima verificação
+	@Override
+	public Connection getConnection() throws SQLException {
+		String chave = (String) determineCurrentLookupKey();
+		if(PRIMARIO.equals(chave)) {
+			return primario.getConnection();
+		}
+
+		try {
+			return replicas.get(chave).getConnection();
+		} catch (SQLException e) {
+			marcarIndisponivel(chave, e);
+			return primario.getConnection();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${minhasfinancas.datasource.replicas.verificacao-ms:10000}")
+	public void verificarReplicas() {
+		for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+			try (Connection conexao = replica.getValue().getConnection()) {
+				if(!conexao.isValid(timeoutVerificacaoSegundos)) {
+					throw new SQLException("Conexão inválida.");
+				}
+				if(indisponiveis.remove(replica.getKey())) {
+					log.info("Réplica {} disponível novamente.", replica.getKey());
+				}
+			} catch (SQLException e) {
+				marcarIndisponivel(replica.getKey(), e);
+			}
+		}
+
+		long agora = System.currentTimeMillis();
+		ultimaEscrita.values().removeIf(limite -> limite < agora);
+	}
+
+	//a janela é dos donos dos dados gravados, não de quem gravou: a ingestão e as rotinas agendadas não têm token
+	public void registrarEscrita(Collection<Long> idsUsuario) {
+		if(janelaLeituraPropriaMillis <= 0) {
+			return;
+		}
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			abrirJanela(idsUsuario);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				abrirJanela(idsUsuario);
+			}
+		});
+	}
+
+	public Map<String, Boolean> situacaoReplicas() {
+		Map<String, Boolean> situacao = new LinkedHashMap<>();
+		chavesReplicas.forEach(chave -> situacao.put(chave, !indisponiveis.contains(chave)));
+		return Collections.unmodifiableMap(situacao);
+	}
+
+	//chamado pelo Spring ao encerrar o contexto, fecha os pools do primário e das réplicas
+	public void close() throws Exception {
+		for (DataSource fonte : replicas.values()) {
+			fechar(fonte);
+		}
+		fechar(primario);
+	}
+
+	private void fechar(DataSource fonte) throws Exception {
+		if(fonte instanceof AutoCloseable) {
+			((AutoCloseable) fonte).close();
+		}
+	}
+
+	private Optional<String> proximaReplicaDisponivel() {
+		int total = chavesReplicas.size();
+		int inicio = proxima.getAndIncrement() & Integer.MAX_VALUE;
+		for (int i = 0; i < total; i++) {
+			String chave = chavesReplicas.get((inicio + i) % total);
+			if(!indisponiveis.contains(chave)) {
+				return Optional.of(chave);
+			}
+		}
+		return Optional.empty();
+	}
+
+	private void abrirJanela(Collection<Long> idsUsuario) {
+		long limite = System.currentTimeMillis() + janelaLeituraPropriaMillis;
+		idsUsuario.forEach(idUsuario -> ultimaEscrita.put(idUsuario, limite));
+	}
+
+	//leitura sem usuário autenticado não tem escrita própria a esperar
+	private boolean dentroDaJanelaDeEscrita() {
+		Long usuario = usuarioAtual();
+		return usuario != null && ultimaEscrita.getOrDefault(usuario, 0L) >= System.currentTimeMillis();
+	}
+
+	private Long usuarioAtual() {
+		RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+		Object idUsuario = atributos == null ? null
+				: atributos.getAttribute(TokenAutenticacaoFilter.ATRIBUTO_USUARIO, RequestAttributes.SCOPE_REQUEST);
+		return idUsuario instanceof Long ? (Long) idUsuario : null;
+	}
+
+	private void marcarIndisponivel(String chave, SQLException e) {
+		if(indisponiveis.add(chave)) {
+			log.warn("Réplica {} indisponível, leituras direcionadas ao primário: {}", chave, e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.ognavi.minhasfinancas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ognavi.minhasfinancas.api.filter.LimiteRequisicoesFilter;
+import com.ognavi.minhasfinancas.api.filter.LimiteRequisicoesFilter.Limite;
+import com.ognavi.minhasfinancas.api.filter.TokenAutenticacaoFilter;
+import com.ognavi.minhasfinancas.service.TokenService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class SegurancaConfiguration {
+
+	@Bean
+	public FilterRegistrationBean<TokenAutenticacaoFilter> tokenAutenticacaoFilter(
+			TokenService tokenService,
+			@Value("${minhasfinancas.seguranca.token.obrigatorio:false}") boolean obrigatorio) {
+		
+		FilterRegistrationBean<TokenAutenticacaoFilter> registro = 
+				new FilterRegistrationBean<>(new TokenAutenticacaoFilter(tokenService, obrigatorio));
+		registro.addUrlPatterns("/api/*");
+		registro.setOrder(1);
+		return registro;
+	}
+
+	//depois do filtro de token, para limitar pelo usuário autenticado
+	@Bean
+	public FilterRegistrationBean<LimiteRequisicoesFilter> limiteRequisicoesFilter(
+			MonitorPoolConexoes monitorPoolConexoes, MeterRegistry registry,
+			@Value("${minhasfinancas.limite.habilitado:true}") boolean habilitado,
+			@Value("${minhasfinancas.limite.leitura.capacidade:100}") long capacidadeLeitura,
+			@Value("${minhasfinancas.limite.leitura.por-segundo:50}") double leituraPorSegundo,
+			@Value("${minhasfinancas.limite.escrita.capacidade:50}") long capacidadeEscrita,
+			@Value("${minhasfinancas.limite.escrita.por-segundo:20}") double escritaPorSegundo,
+			@Value("${minhasfinancas.limite.autenticacao.capacidade:10}") long capacidadeAutenticacao,
+			@Value("${minhasfinancas.limite.autenticacao.por-segundo:0.2}") double autenticacaoPorSegundo,
+			@Value("${minhasfinancas.limite.baldes.tamanho-maximo:100000}") long tamanhoMaximoBaldes,
+			@Value("${minhasfinancas.limite.baldes.expiracao-minutos:10}") long expiracaoMinutosBaldes,
+			@Value("${minhasfinancas.carga.concorrencia-sobrecarga:10}") int concorrenciaSobrecarga) {
+
+		FilterRegistrationBean<LimiteRequisicoesFilter> registro = new FilterRegistrationBean<>(new LimiteRequisicoesFilter(
+				new Limite("leitura", capacidadeLeitura, leituraPorSegundo),
+				new Limite("escrita", capacidadeEscrita, escritaPorSegundo),
+				new Limite("autenticacao", capacidadeAutenticacao, autenticacaoPorSegundo),
+				concorrenciaSobrecarga, monitorPoolConexoes::isSobrecarregado,
+				tamanhoMaximoBaldes, expiracaoMinutosBaldes, registry));
+		registro.addUrlPatterns("/api/*");
+		registro.setOrder(2);
+		registro.setEnabled(habilitado);
+		return registro;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.ognavi.minhasfinancas.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskExecutorCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modo opcional (minhasfinancas.threads-virtuais.habilitado=true) em que o Tomcat atende cada requisição
+ * em uma thread virtual, inclusive as chamadas @Transactional dos serviços, que rodam na thread da requisição.
+ * Exige Java 21 em tempo de execução; o build padrão continua em Java 8, por isso a API é acessada
+ * por reflexão. Ver o profile java21 do pom.xml.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minhasfinancas.threads-virtuais.habilitado", havingValue = "true")
+public class ThreadsVirtuaisConfiguration {
+
+	private static final Logger log = LoggerFactory.getLogger(ThreadsVirtuaisConfiguration.class);
+
+	//o executor não é exposto como bean para não substituir o applicationTaskExecutor do Spring Boot
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> threadsVirtuaisTomcat() {
+		Executor executor = criarExecutor("http-virtual-");
+		log.info("Requisições HTTP atendidas em threads virtuais.");
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	//exportação (StreamingResponseBody) também bloqueia no cursor do banco, o pool mantém o limite de concorrência
+	@Bean
+	public TaskExecutorCustomizer threadsVirtuaisTarefas() {
+		return taskExecutor -> taskExecutor.setThreadFactory(criarFabrica("tarefa-virtual-"));
+	}
+
+	//Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefixo, 0).factory())
+	private static Executor criarExecutor(String prefixo) {
+		try {
+			Method porTarefa = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (Executor) porTarefa.invoke(null, criarFabrica(prefixo));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Threads virtuais exigem Java 21 ou superior.", e);
+		}
+	}
+
+	private static ThreadFactory criarFabrica(String prefixo) {
+		try {
+			Object construtor = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> tipoConstrutor = Class.forName("java.lang.Thread$Builder");
+			construtor = tipoConstrutor.getMethod("name", String.class, long.class).invoke(construtor, prefixo, 0L);
+			return (ThreadFactory) tipoConstrutor.getMethod("factory").invoke(construtor);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Threads virtuais exigem Java 21 ou superior.", e);
+		}
+	}
+
+}
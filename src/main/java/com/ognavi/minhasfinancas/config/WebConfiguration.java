@@ -1,6 +1,10 @@
 package com.ognavi.minhasfinancas.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -9,8 +13,20 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
 	
+	private final ObjectProvider<ThreadPoolTaskExecutor> taskExecutor;
+	
+	public WebConfiguration(ObjectProvider<ThreadPoolTaskExecutor> taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+	
 	@Override
 	public void addCorsMappings( CorsRegistry registry ) {
-		registry.addMapping("/**").allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS");
+		registry.addMapping("/**").allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS").exposedHeaders(HttpHeaders.AUTHORIZATION, HttpHeaders.LOCATION, HttpHeaders.RETRY_AFTER);
+	}
+	
+	//respostas assíncronas (exportação) usam o pool de threads da aplicação em vez de uma thread por requisição
+	@Override
+	public void configureAsyncSupport( AsyncSupportConfigurer configurer ) {
+		taskExecutor.ifUnique(configurer::setTaskExecutor);
 	}
 }
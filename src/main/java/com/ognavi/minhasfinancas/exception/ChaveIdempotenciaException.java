@@ -0,0 +1,16 @@
+package com.ognavi.minhasfinancas.exception;
+
+public class ChaveIdempotenciaException extends RuntimeException {
+
+	//a primeira execução com a chave ainda não terminou; sem isso, a chave foi reutilizada em outra requisição
+	private final boolean emAndamento;
+	
+	public ChaveIdempotenciaException(String msg, boolean emAndamento) {
+		super(msg);
+		this.emAndamento = emAndamento;
+	}
+	
+	public boolean isEmAndamento() {
+		return emAndamento;
+	}
+}
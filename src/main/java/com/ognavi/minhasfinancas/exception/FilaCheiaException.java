@@ -0,0 +1,15 @@
+package com.ognavi.minhasfinancas.exception;
+
+public class FilaCheiaException extends RuntimeException {
+
+	private final long segundosParaNovaTentativa;
+	
+	public FilaCheiaException(String msg, long segundosParaNovaTentativa) {
+		super(msg);
+		this.segundosParaNovaTentativa = segundosParaNovaTentativa;
+	}
+	
+	public long getSegundosParaNovaTentativa() {
+		return segundosParaNovaTentativa;
+	}
+}
@@ -0,0 +1,8 @@
+package com.ognavi.minhasfinancas.exception;
+
+public class IngestaoEncerradaException extends RuntimeException {
+
+	public IngestaoEncerradaException(String msg) {
+		super(msg);
+	}
+}
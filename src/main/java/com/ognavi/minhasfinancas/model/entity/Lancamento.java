@@ -13,6 +13,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
@@ -34,7 +35,8 @@ import lombok.NoArgsConstructor;
 public class Lancamento {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_id_seq")
+	@SequenceGenerator(name = "lancamento_id_seq", sequenceName = "lancamento_id_seq", schema = "financas", allocationSize = 50) //IDENTITY desabilita o insert em lote do Hibernate
 	@Column(name = "id")
 	private Long id;
 	
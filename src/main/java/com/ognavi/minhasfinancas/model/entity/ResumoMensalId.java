@@ -0,0 +1,26 @@
+package com.ognavi.minhasfinancas.model.entity;
+
+import java.io.Serializable;
+
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//chave composta do ResumoMensal
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensalId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long idUsuario;
+	private Integer ano;
+	private Integer mes;
+	private TipoLancamento tipo;
+	private StatusLancamento status;
+
+}
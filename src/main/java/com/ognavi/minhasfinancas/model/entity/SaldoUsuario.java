@@ -0,0 +1,39 @@
+package com.ognavi.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "saldo_usuario", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoUsuario {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+
+	//total dos lançamentos EFETIVADOS do tipo RECEITA
+	@Column(name = "receitas")
+	private BigDecimal receitas;
+
+	//total dos lançamentos EFETIVADOS do tipo DESPESA
+	@Column(name = "despesas")
+	private BigDecimal despesas;
+
+	public BigDecimal getSaldo() {
+		return receitas.subtract(despesas);
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.ognavi.minhasfinancas.model.enums;
+
+public enum FormatoExportacao {
+
+	CSV,
+	NDJSON,
+	SMILE,
+	CBOR
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.ognavi.minhasfinancas.model.enums;
+
+public enum SituacaoIngestao {
+
+	PENDENTE,
+	GRAVADO,
+	ERRO
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+//os comandos nativos sem equivalente comum entre o PostgreSQL e o H2 dos testes escolhem a sintaxe por aqui
+final class DialetoBanco {
+
+	private DialetoBanco() {
+	}
+
+	static boolean isH2(EntityManager entityManager) {
+		return entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactoryImplementor.class)
+				.getJdbcServices()
+				.getDialect() instanceof H2Dialect;
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consultas de leitura via R2DBC sobre as mesmas tabelas do schema financas. As linhas são
+ * entregues conforme a demanda do assinante, em blocos do tamanho do fetch size.
+ */
+@Repository
+public class LancamentoReativoRepository {
+
+	private static final String SELECT_LANCAMENTO =
+			  " select id, descricao, mes, ano, valor, id_usuario, tipo, status "
+			+ " from financas.lancamento ";
+
+	private final ConnectionFactory connectionFactory;
+	private final int fetchSize;
+
+	public LancamentoReativoRepository(ConnectionFactory connectionFactory,
+			@Value("${minhasfinancas.r2dbc.fetch-size:500}") int fetchSize) {
+		this.connectionFactory = connectionFactory;
+		this.fetchSize = fetchSize;
+	}
+
+	//mesmo filtro e ordem de LancamentoRepository.buscarResumo: descrição contendo, sem diferenciar maiúsculas
+	public Flux<LancamentoDTO> buscar(Long idUsuario, String descricao, Integer ano, Integer mes) {
+		List<Object> parametros = new ArrayList<>();
+		StringBuilder sql = new StringBuilder(SELECT_LANCAMENTO).append(" where id_usuario = ").append(parametro(parametros, idUsuario));
+		if(descricao != null) {
+			sql.append(" and lower(descricao) like ").append(parametro(parametros, PadraoLike.contendo(descricao))).append(" escape '\\'");
+		}
+		if(ano != null) {
+			sql.append(" and ano = ").append(parametro(parametros, ano));
+		}
+		if(mes != null) {
+			sql.append(" and mes = ").append(parametro(parametros, mes));
+		}
+		sql.append(" order by ano, mes, id ");
+
+		return consultar(sql.toString(), parametros, this::converter);
+	}
+
+	public Mono<LancamentoDTO> obterPorId(Long id) {
+		List<Object> parametros = new ArrayList<>();
+		String sql = SELECT_LANCAMENTO + " where id = " + parametro(parametros, id);
+		return consultar(sql, parametros, this::converter).next();
+	}
+
+	public Mono<Boolean> existeUsuario(Long idUsuario) {
+		List<Object> parametros = new ArrayList<>();
+		String sql = " select id from financas.usuario where id = " + parametro(parametros, idUsuario);
+		return consultar(sql, parametros, (linha, metadados) -> Boolean.TRUE).next().defaultIfEmpty(Boolean.FALSE);
+	}
+
+	//saldo consolidado quando existir, senão calculado a partir dos lançamentos efetivados
+	public Mono<BigDecimal> obterSaldo(Long idUsuario) {
+		List<Object> parametros = new ArrayList<>();
+		String consolidado = " select receitas - despesas from financas.saldo_usuario where id_usuario = " + parametro(parametros, idUsuario);
+		String calculado =
+				  " select coalesce( sum( case when tipo = 'RECEITA' then valor else -valor end ), 0 ) "
+				+ " from financas.lancamento where id_usuario = $1 and status = 'EFETIVADO' ";
+
+		return consultar(consolidado, parametros, (linha, metadados) -> linha.get(0, BigDecimal.class)).next()
+				.switchIfEmpty(consultar(calculado, parametros, (linha, metadados) -> linha.get(0, BigDecimal.class)).next());
+	}
+
+	//a conexão volta para o pool ao terminar, com erro ou quando o assinante cancela
+	private <T> Flux<T> consultar(String sql, List<Object> parametros, BiFunction<Row, RowMetadata, T> conversor) {
+		return Flux.usingWhen(
+				connectionFactory.create(),
+				conexao -> executar(conexao, sql, parametros, conversor),
+				Connection::close);
+	}
+
+	private <T> Flux<T> executar(Connection conexao, String sql, List<Object> parametros, BiFunction<Row, RowMetadata, T> conversor) {
+		Statement statement = conexao.createStatement(sql).fetchSize(fetchSize);
+		for (int i = 0; i < parametros.size(); i++) {
+			statement.bind(i, parametros.get(i));
+		}
+		return Flux.from(statement.execute()).concatMap(resultado -> resultado.map(conversor));
+	}
+
+	private String parametro(List<Object> parametros, Object valor) {
+		parametros.add(valor);
+		return "$" + parametros.size();
+	}
+
+	private LancamentoDTO converter(Row linha, RowMetadata metadados) {
+		return LancamentoDTO.builder()
+				.id(linha.get(0, Long.class))
+				.descricao(linha.get(1, String.class))
+				.mes(linha.get(2, Integer.class))
+				.ano(linha.get(3, Integer.class))
+				.valor(linha.get(4, BigDecimal.class))
+				.usuario(linha.get(5, Long.class))
+				.tipo(linha.get(6, String.class))
+				.status(linha.get(7, String.class))
+				.build();
+	}
+
+}
@@ -1,16 +1,31 @@
 package com.ognavi.minhasfinancas.model.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
 import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
 import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
 import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
 
-public interface LancamentoRepository extends JpaRepository<Lancamento, Long>  {
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long>, LancamentoRepositoryCustom  {
 
 	@Query( value = 
 			  " select sum(l.valor) from Lancamento l join l.usuario u " 
@@ -19,4 +34,185 @@ public interface LancamentoRepository extends JpaRepository<Lancamento, Long>  {
 			@Param("idUsuario") Long idUsuario, 
 			@Param("tipo") TipoLancamento tipo,
 			@Param("status") StatusLancamento status);
+
+	//apenas o dono do lançamento, sem carregar a entidade
+	@Query( value = " select l.usuario.id from Lancamento l where l.id = :id " )
+	Optional<Long> obterIdUsuario( @Param("id") Long id );
+
+	//valores atuais do lançamento, para ajustar o saldo e o resumo mensal sem carregar a entidade
+	//sem flush antes da consulta: uma alteração pendente na sessão não pode aparecer como valor anterior
+	//select ... for update: duas alterações do mesmo lançamento não calculam as variações a partir da mesma versão
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints( value = @QueryHint( name = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE, value = "COMMIT" ) )
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.api.dto.LancamentoDTO( "
+			+ "   l.id, l.descricao, l.mes, l.ano, l.valor, l.usuario.id, l.tipo, l.status ) "
+			+ " from Lancamento l "
+			+ " where l.id = :id and ( :idUsuario is null or l.usuario.id = :idUsuario ) " )
+	Optional<LancamentoDTO> obterResumoPorId(
+			@Param("id") Long id,
+			@Param("idUsuario") Long idUsuario);
+
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.model.entity.SaldoUsuario( u.id, "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.RECEITA then l.valor else 0 end ), "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.DESPESA then l.valor else 0 end ) ) "
+			+ " from Lancamento l join l.usuario u "
+			+ " where u.id = :idUsuario and l.status = com.ognavi.minhasfinancas.model.enums.StatusLancamento.EFETIVADO "
+			+ " group by u.id " )
+	Optional<SaldoUsuario> obterSaldoConsolidadoPorUsuario( @Param("idUsuario") Long idUsuario );
+
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO( l.ano, l.mes, l.status, "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.RECEITA then l.valor else 0 end ), "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.DESPESA then l.valor else 0 end ) ) "
+			+ " from Lancamento l "
+			+ " where l.usuario.id = :idUsuario and l.status is not null "
+			+ "   and ( :ano is null or l.ano = :ano ) and ( :mes is null or l.mes = :mes ) "
+			+ " group by l.ano, l.mes, l.status "
+			+ " order by l.ano, l.mes, l.status " )
+	List<SaldoPeriodoDTO> obterSaldoPorMesEStatus(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes);
+
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO( l.status, "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.RECEITA then l.valor else 0 end ), "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.DESPESA then l.valor else 0 end ) ) "
+			+ " from Lancamento l "
+			+ " where l.usuario.id = :idUsuario and l.status is not null "
+			+ "   and ( :ano is null or l.ano = :ano ) and ( :mes is null or l.mes = :mes ) "
+			+ " group by l.status "
+			+ " order by l.status " )
+	List<SaldoPeriodoDTO> obterSaldoPorStatus(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes);
+
+	//projeção direto no DTO: uma única consulta, sem carregar o usuário e sem entidades gerenciadas
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.api.dto.LancamentoDTO( "
+			+ "   l.id, l.descricao, l.mes, l.ano, l.valor, l.usuario.id, l.tipo, l.status ) "
+			+ " from Lancamento l "
+			+ " where l.usuario.id = :idUsuario "
+			+ "   and ( :descricao is null or lower(l.descricao) like :descricao escape '\\' ) "
+			+ "   and ( :ano is null or l.ano = :ano ) and ( :mes is null or l.mes = :mes ) "
+			+ " order by l.ano, l.mes, l.id " )
+	List<LancamentoDTO> buscarResumo(
+			@Param("idUsuario") Long idUsuario,
+			@Param("descricao") String descricao,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes);
+
+	//paginação por chave: continua a partir do último (ano, mes, id) devolvido, sem OFFSET
+	//o "l.ano >= :cursorAno" é redundante com o OR, mas é ele que limita o início da leitura no índice (id_usuario, ano, mes, id)
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.api.dto.LancamentoDTO( "
+			+ "   l.id, l.descricao, l.mes, l.ano, l.valor, l.usuario.id, l.tipo, l.status ) "
+			+ " from Lancamento l "
+			+ " where l.usuario.id = :idUsuario "
+			+ "   and ( :descricao is null or lower(l.descricao) like :descricao escape '\\' ) "
+			+ "   and ( :ano is null or l.ano = :ano ) and ( :mes is null or l.mes = :mes ) "
+			+ "   and l.ano >= :cursorAno "
+			+ "   and ( l.ano > :cursorAno or ( l.ano = :cursorAno and ( l.mes > :cursorMes "
+			+ "         or ( l.mes = :cursorMes and l.id > :cursorId ) ) ) ) "
+			+ " order by l.ano, l.mes, l.id " )
+	List<LancamentoDTO> buscarPagina(
+			@Param("idUsuario") Long idUsuario,
+			@Param("descricao") String descricao,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("cursorAno") Integer cursorAno,
+			@Param("cursorMes") Integer cursorMes,
+			@Param("cursorId") Long cursorId,
+			Pageable pageable);
+
+	//cursor somente para frente, as linhas são lidas do banco em blocos do tamanho do fetch size
+	@QueryHints( value = {
+			@QueryHint( name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500" ),
+			@QueryHint( name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true" ) } )
+	@Query( value =
+			  " select l from Lancamento l join fetch l.usuario u "
+			+ " where u.id = :idUsuario "
+			+ " order by l.ano, l.mes, l.id " )
+	Stream<Lancamento> streamPorUsuario( @Param("idUsuario") Long idUsuario );
+
+	//totais por usuário dos lançamentos que serão alterados, para ajustar o saldo consolidado sem carregar as linhas
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.model.entity.SaldoUsuario( u.id, "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.RECEITA then l.valor else 0 end ), "
+			+ "   sum( case when l.tipo = com.ognavi.minhasfinancas.model.enums.TipoLancamento.DESPESA then l.valor else 0 end ) ) "
+			+ " from Lancamento l join l.usuario u "
+			+ " where l.id in :ids and ( :idUsuario is null or u.id = :idUsuario ) and l.status in :statusAtuais "
+			+ " group by u.id " )
+	List<SaldoUsuario> obterTotaisPorIdsEStatus(
+			@Param("ids") Collection<Long> ids,
+			@Param("idUsuario") Long idUsuario,
+			@Param("statusAtuais") Collection<StatusLancamento> statusAtuais);
+
+	//recalcula uma chave do resumo mensal a partir da tabela de lançamentos
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.model.entity.ResumoMensal( u.id, l.ano, l.mes, l.tipo, l.status, sum(l.valor), count(l) ) "
+			+ " from Lancamento l join l.usuario u "
+			+ " where u.id = :idUsuario and l.ano = :ano and l.mes = :mes and l.tipo = :tipo and l.status = :status "
+			+ " group by u.id, l.ano, l.mes, l.tipo, l.status " )
+	Optional<ResumoMensal> obterResumoMensal(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("tipo") TipoLancamento tipo,
+			@Param("status") StatusLancamento status);
+
+	//resumo mensal dos lançamentos que terão o status alterado, com o status atual de cada grupo
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.model.entity.ResumoMensal( u.id, l.ano, l.mes, l.tipo, l.status, sum(l.valor), count(l) ) "
+			+ " from Lancamento l join l.usuario u "
+			+ " where l.id in :ids and ( :idUsuario is null or u.id = :idUsuario ) and l.status <> :status "
+			+ " group by u.id, l.ano, l.mes, l.tipo, l.status " )
+	List<ResumoMensal> obterResumoPorIdsEStatusDiferente(
+			@Param("ids") Collection<Long> ids,
+			@Param("idUsuario") Long idUsuario,
+			@Param("status") StatusLancamento status);
+
+	//select ... for update dos lançamentos que o lote vai alterar: os totais e o UPDATE seguintes usam estes ids,
+	//que nenhuma outra transação altera até o commit (o status é not null, l.status <> :status basta)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query( value =
+			  " select l.id from Lancamento l "
+			+ " where l.id in :ids and ( :idUsuario is null or l.usuario.id = :idUsuario ) and l.status <> :status " )
+	List<Long> bloquearPorIdsEStatusDiferente(
+			@Param("ids") Collection<Long> ids,
+			@Param("idUsuario") Long idUsuario,
+			@Param("status") StatusLancamento status);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query( value =
+			  " select l.id from Lancamento l "
+			+ " where l.usuario.id = :idUsuario "
+			+ "   and ( :ano is null or l.ano = :ano ) and ( :mes is null or l.mes = :mes ) and l.status <> :status " )
+	List<Long> bloquearPorPeriodoEStatusDiferente(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("status") StatusLancamento status);
+
+	//um único UPDATE no banco, as entidades carregadas na sessão são descartadas
+	@Modifying( flushAutomatically = true, clearAutomatically = true )
+	@Query( value =
+			  " update Lancamento l set l.status = :status "
+			+ " where l.id in :ids and ( :idUsuario is null or l.usuario.id = :idUsuario ) and l.status <> :status " )
+	int atualizarStatusPorIds(
+			@Param("ids") Collection<Long> ids,
+			@Param("idUsuario") Long idUsuario,
+			@Param("status") StatusLancamento status);
+
+	//um único DELETE, sem o SELECT que o delete(entidade) faz para anexar o lançamento à sessão
+	@Modifying( flushAutomatically = true, clearAutomatically = true )
+	@Query( value =
+			  " delete from Lancamento l "
+			+ " where l.id = :id and ( :idUsuario is null or l.usuario.id = :idUsuario ) " )
+	int deletarPorId(
+			@Param("id") Long id,
+			@Param("idUsuario") Long idUsuario);
 }
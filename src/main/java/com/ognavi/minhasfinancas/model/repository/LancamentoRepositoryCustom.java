@@ -0,0 +1,24 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+
+public interface LancamentoRepositoryCustom {
+
+	/**
+	 * Atualiza apenas os campos não nulos de {@code alteracoes} (descrição, mês, ano, valor, tipo, status e usuário)
+	 * do lançamento com o mesmo id, em um único UPDATE.
+	 * 
+	 * @param idUsuario quando informado, o lançamento só é alterado se pertencer a este usuário
+	 * @return a quantidade de linhas alteradas
+	 */
+	int atualizarCampos(Lancamento alteracoes, Long idUsuario);
+	
+	/**
+	 * Cria a partição do ano na tabela particionada do PostgreSQL (financas.criar_particao_lancamento), movendo para
+	 * ela as linhas do ano que estiverem na partição padrão. Não faz nada se a partição já existir.
+	 * 
+	 * @return false quando o banco não particiona a tabela (H2 dos testes) e nada foi executado
+	 */
+	boolean criarParticaoAno(int ano);
+	
+}
@@ -0,0 +1,89 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+
+//implementação dos métodos de LancamentoRepositoryCustom, encontrada pelo Spring Data pelo sufixo Impl
+public class LancamentoRepositoryImpl implements LancamentoRepositoryCustom {
+
+	//a função devolve void, no from ela vira uma linha que pode ser lida pelo getSingleResult
+	private static final String CRIAR_PARTICAO_ANO = " select 1 from financas.criar_particao_lancamento( :ano ) ";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public int atualizarCampos(Lancamento alteracoes, Long idUsuario) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Lancamento> update = builder.createCriteriaUpdate(Lancamento.class);
+		Root<Lancamento> lancamento = update.from(Lancamento.class);
+		
+		boolean possuiAlteracao = false;
+		if(alteracoes.getDescricao() != null) {
+			update.set(lancamento.<String>get("descricao"), alteracoes.getDescricao());
+			possuiAlteracao = true;
+		}
+		if(alteracoes.getMes() != null) {
+			update.set(lancamento.<Integer>get("mes"), alteracoes.getMes());
+			possuiAlteracao = true;
+		}
+		if(alteracoes.getAno() != null) {
+			update.set(lancamento.<Integer>get("ano"), alteracoes.getAno());
+			possuiAlteracao = true;
+		}
+		if(alteracoes.getValor() != null) {
+			update.set(lancamento.get("valor"), alteracoes.getValor());
+			possuiAlteracao = true;
+		}
+		if(alteracoes.getTipo() != null) {
+			update.set(lancamento.get("tipo"), alteracoes.getTipo());
+			possuiAlteracao = true;
+		}
+		if(alteracoes.getStatus() != null) {
+			update.set(lancamento.get("status"), alteracoes.getStatus());
+			possuiAlteracao = true;
+		}
+		if(alteracoes.getUsuario() != null) {
+			update.set(lancamento.get("usuario"), alteracoes.getUsuario());
+			possuiAlteracao = true;
+		}
+		
+		if(!possuiAlteracao) {
+			return 0;
+		}
+		
+		List<Predicate> condicoes = new ArrayList<>();
+		condicoes.add(builder.equal(lancamento.get("id"), alteracoes.getId()));
+		if(idUsuario != null) {
+			condicoes.add(builder.equal(lancamento.get("usuario").get("id"), idUsuario));
+		}
+		update.where(condicoes.toArray(new Predicate[0]));
+		
+		//assim como no @Modifying(clearAutomatically = true), descarta entidades carregadas que ficaram desatualizadas
+		int atualizados = entityManager.createQuery(update).executeUpdate();
+		entityManager.clear();
+		return atualizados;
+	}
+	
+	//no H2 a tabela não é particionada (a migração V5 existe somente para o PostgreSQL)
+	@Override
+	public boolean criarParticaoAno(int ano) {
+		if(DialetoBanco.isH2(entityManager)) {
+			return false;
+		}
+		entityManager.createNativeQuery(CRIAR_PARTICAO_ANO)
+				.setParameter("ano", ano)
+				.getSingleResult();
+		return true;
+	}
+	
+}
@@ -0,0 +1,21 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+//padrões para os like ... escape '\' das consultas de lançamentos, na JPA e no acesso reativo
+public final class PadraoLike {
+
+	private PadraoLike() {
+	}
+
+	//mesma semântica do ExampleMatcher: contém, ignorando maiúsculas e minúsculas
+	public static String contendo(String valor) {
+		if(valor == null) {
+			return null;
+		}
+		String escapado = valor.toLowerCase()
+				.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_");
+		return "%" + escapado + "%";
+	}
+
+}
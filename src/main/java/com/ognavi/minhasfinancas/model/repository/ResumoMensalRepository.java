@@ -0,0 +1,69 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensalId;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ResumoMensalId>, ResumoMensalRepositoryCustom {
+
+	//incremento atômico no banco, como no SaldoUsuarioRepository
+	@Modifying
+	@Query( value =
+			  " update ResumoMensal r set r.total = r.total + :total, r.quantidade = r.quantidade + :quantidade "
+			+ " where r.idUsuario = :idUsuario and r.ano = :ano and r.mes = :mes and r.tipo = :tipo and r.status = :status " )
+	int incrementar(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("tipo") TipoLancamento tipo,
+			@Param("status") StatusLancamento status,
+			@Param("total") BigDecimal total,
+			@Param("quantidade") Long quantidade);
+
+	//meses entre (anoInicio, mesInicio) e (anoFim, mesFim), inclusive; chaves zeradas por exclusões ficam de fora
+	@Query( value =
+			  " select new com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO( r.ano, r.mes, r.tipo, r.status, r.total, r.quantidade ) "
+			+ " from ResumoMensal r "
+			+ " where r.idUsuario = :idUsuario and r.quantidade > 0 "
+			+ "   and ( r.ano > :anoInicio or ( r.ano = :anoInicio and r.mes >= :mesInicio ) ) "
+			+ "   and ( r.ano < :anoFim or ( r.ano = :anoFim and r.mes <= :mesFim ) ) "
+			+ " order by r.ano, r.mes, r.tipo, r.status " )
+	List<ResumoMensalDTO> buscarPorPeriodo(
+			@Param("idUsuario") Long idUsuario,
+			@Param("anoInicio") Integer anoInicio,
+			@Param("mesInicio") Integer mesInicio,
+			@Param("anoFim") Integer anoFim,
+			@Param("mesFim") Integer mesFim);
+
+	//usuários reconstruídos pelo ResumoMensalService, um por transação
+	@Query( value =
+			  " select u.id from Usuario u "
+			+ " where exists ( select l.id from Lancamento l where l.usuario = u ) "
+			+ "    or exists ( select r.idUsuario from ResumoMensal r where r.idUsuario = u.id ) "
+			+ " order by u.id " )
+	List<Long> obterUsuariosComLancamentosOuResumo();
+
+	@Modifying( flushAutomatically = true, clearAutomatically = true )
+	@Query( value = " delete from ResumoMensal r where r.idUsuario = :idUsuario " )
+	int excluirPorUsuario( @Param("idUsuario") Long idUsuario );
+
+	//mesma agregação da carga inicial (V7__resumo_mensal.sql), restrita a um usuário, em um único INSERT ... SELECT
+	@Modifying( flushAutomatically = true, clearAutomatically = true )
+	@Query( value =
+			  " insert into financas.resumo_mensal ( id_usuario, ano, mes, tipo, status, total, quantidade ) "
+			+ " select id_usuario, ano, mes, tipo, status, sum(valor), count(*) "
+			+ " from financas.lancamento "
+			+ " where id_usuario = :idUsuario "
+			+ " group by id_usuario, ano, mes, tipo, status ", nativeQuery = true )
+	int inserirAPartirDosLancamentos( @Param("idUsuario") Long idUsuario );
+}
@@ -0,0 +1,15 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+
+public interface ResumoMensalRepositoryCustom {
+
+	/**
+	 * Cria a chave do resumo com o total e a quantidade de {@code inicial} ou, se outra transação já a criou,
+	 * soma {@code variacao} à existente, em um único comando atômico.
+	 * 
+	 * @return a quantidade de linhas inseridas ou alteradas
+	 */
+	int inserirOuIncrementar(ResumoMensal inicial, ResumoMensal variacao);
+	
+}
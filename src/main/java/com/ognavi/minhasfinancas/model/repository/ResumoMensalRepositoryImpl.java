@@ -0,0 +1,44 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+
+//implementação dos métodos de ResumoMensalRepositoryCustom, encontrada pelo Spring Data pelo sufixo Impl
+public class ResumoMensalRepositoryImpl implements ResumoMensalRepositoryCustom {
+
+	//mesmo tratamento do SaldoUsuarioRepositoryImpl: a chave criada por uma transação concorrente cai no ON CONFLICT
+	private static final String INSERIR_OU_INCREMENTAR =
+			  " insert into financas.resumo_mensal as r ( id_usuario, ano, mes, tipo, status, total, quantidade ) "
+			+ " values ( :idUsuario, :ano, :mes, :tipo, :status, :totalInicial, :quantidadeInicial ) "
+			+ " on conflict ( id_usuario, ano, mes, tipo, status ) do update "
+			+ " set total = r.total + :total, quantidade = r.quantidade + :quantidade ";
+
+	private static final String INSERIR_OU_INCREMENTAR_H2 =
+			  " merge into financas.resumo_mensal r using dual "
+			+ " on ( r.id_usuario = :idUsuario and r.ano = :ano and r.mes = :mes and r.tipo = :tipo and r.status = :status ) "
+			+ " when matched then update set total = r.total + :total, quantidade = r.quantidade + :quantidade "
+			+ " when not matched then insert ( id_usuario, ano, mes, tipo, status, total, quantidade ) "
+			+ " values ( :idUsuario, :ano, :mes, :tipo, :status, :totalInicial, :quantidadeInicial ) ";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public int inserirOuIncrementar(ResumoMensal inicial, ResumoMensal variacao) {
+		return entityManager
+				.createNativeQuery(DialetoBanco.isH2(entityManager) ? INSERIR_OU_INCREMENTAR_H2 : INSERIR_OU_INCREMENTAR)
+				.setParameter("idUsuario", inicial.getIdUsuario())
+				.setParameter("ano", inicial.getAno())
+				.setParameter("mes", inicial.getMes())
+				.setParameter("tipo", inicial.getTipo().name())
+				.setParameter("status", inicial.getStatus().name())
+				.setParameter("totalInicial", inicial.getTotal())
+				.setParameter("quantidadeInicial", inicial.getQuantidade())
+				.setParameter("total", variacao.getTotal())
+				.setParameter("quantidade", variacao.getQuantidade())
+				.executeUpdate();
+	}
+	
+}
@@ -0,0 +1,42 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, Long>, SaldoUsuarioRepositoryCustom {
+
+	//incremento atômico no banco, evita ler-modificar-gravar com escritas concorrentes do mesmo usuário
+	@Modifying
+	@Query( value =
+			  " update SaldoUsuario s set s.receitas = s.receitas + :receitas, s.despesas = s.despesas + :despesas "
+			+ " where s.idUsuario = :idUsuario " )
+	int incrementar(
+			@Param("idUsuario") Long idUsuario,
+			@Param("receitas") BigDecimal receitas,
+			@Param("despesas") BigDecimal despesas);
+
+	//select ... for update: incrementos concorrentes do usuário esperam a correção terminar
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query( value = " select s from SaldoUsuario s where s.idUsuario = :idUsuario " )
+	Optional<SaldoUsuario> obterParaAtualizacao( @Param("idUsuario") Long idUsuario );
+
+	//usuários com saldo consolidado ou com algum lançamento efetivado, os únicos que podem divergir
+	@Query( value =
+			  " select u.id from Usuario u "
+			+ " where exists ( select s.idUsuario from SaldoUsuario s where s.idUsuario = u.id ) "
+			+ "    or exists ( select l.id from Lancamento l where l.usuario = u "
+			+ "                and l.status = com.ognavi.minhasfinancas.model.enums.StatusLancamento.EFETIVADO ) "
+			+ " order by u.id " )
+	List<Long> obterUsuariosComSaldoOuEfetivados();
+}
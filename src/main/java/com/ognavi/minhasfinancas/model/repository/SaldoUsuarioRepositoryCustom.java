@@ -0,0 +1,15 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioRepositoryCustom {
+
+	/**
+	 * Cria o consolidado do usuário com os totais de {@code inicial} ou, se outra transação já o criou,
+	 * soma {@code variacao} ao existente, em um único comando atômico.
+	 * 
+	 * @return a quantidade de linhas inseridas ou alteradas
+	 */
+	int inserirOuIncrementar(SaldoUsuario inicial, SaldoUsuario variacao);
+	
+}
@@ -0,0 +1,40 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+
+//implementação dos métodos de SaldoUsuarioRepositoryCustom, encontrada pelo Spring Data pelo sufixo Impl
+public class SaldoUsuarioRepositoryImpl implements SaldoUsuarioRepositoryCustom {
+
+	//a linha inserida por uma transação concorrente cai no ON CONFLICT, sem erro de chave duplicada
+	private static final String INSERIR_OU_INCREMENTAR =
+			  " insert into financas.saldo_usuario as s ( id_usuario, receitas, despesas ) "
+			+ " values ( :idUsuario, :receitasIniciais, :despesasIniciais ) "
+			+ " on conflict ( id_usuario ) do update "
+			+ " set receitas = s.receitas + :receitas, despesas = s.despesas + :despesas ";
+
+	//o H2 dos testes não tem ON CONFLICT ... DO UPDATE
+	private static final String INSERIR_OU_INCREMENTAR_H2 =
+			  " merge into financas.saldo_usuario s using dual on ( s.id_usuario = :idUsuario ) "
+			+ " when matched then update set receitas = s.receitas + :receitas, despesas = s.despesas + :despesas "
+			+ " when not matched then insert ( id_usuario, receitas, despesas ) "
+			+ " values ( :idUsuario, :receitasIniciais, :despesasIniciais ) ";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public int inserirOuIncrementar(SaldoUsuario inicial, SaldoUsuario variacao) {
+		return entityManager
+				.createNativeQuery(DialetoBanco.isH2(entityManager) ? INSERIR_OU_INCREMENTAR_H2 : INSERIR_OU_INCREMENTAR)
+				.setParameter("idUsuario", inicial.getIdUsuario())
+				.setParameter("receitasIniciais", inicial.getReceitas())
+				.setParameter("despesasIniciais", inicial.getDespesas())
+				.setParameter("receitas", variacao.getReceitas())
+				.setParameter("despesas", variacao.getDespesas())
+				.executeUpdate();
+	}
+	
+}
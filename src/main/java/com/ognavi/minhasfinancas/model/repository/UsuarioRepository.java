@@ -1,8 +1,12 @@
 package com.ognavi.minhasfinancas.model.repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.ognavi.minhasfinancas.model.entity.Usuario;
 
@@ -12,4 +16,12 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	
 	Optional<Usuario> findByEmail(String email);
 	
+	//a coluna versao não é mapeada na entidade, para que um save do usuário nunca a sobrescreva
+	@Query( value = " select versao from financas.usuario where id = :id ", nativeQuery = true )
+	Long obterVersao( @Param("id") Long id );
+	
+	@Modifying
+	@Query( value = " update financas.usuario set versao = versao + 1 where id in :ids ", nativeQuery = true )
+	int incrementarVersao( @Param("ids") Collection<Long> ids );
+	
 }
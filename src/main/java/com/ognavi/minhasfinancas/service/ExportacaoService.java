@@ -0,0 +1,12 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.ognavi.minhasfinancas.model.enums.FormatoExportacao;
+
+public interface ExportacaoService {
+
+	void exportarLancamentos(Long idUsuario, FormatoExportacao formato, OutputStream saida) throws IOException;
+	
+}
@@ -0,0 +1,17 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public interface IdempotenciaService {
+
+	/**
+	 * Executa uma única vez por chave: repetições recebem o resultado da primeira execução,
+	 * aguardando-a se ainda estiver em andamento.
+	 * 
+	 * @param requisicao conteúdo da requisição, comparado por equals com o da primeira execução
+	 * @param reaproveitavel resultados recusados não ficam guardados e a próxima repetição executa de novo
+	 */
+	<T> T executar(String chave, Object requisicao, Supplier<T> execucao, Predicate<T> reaproveitavel);
+	
+}
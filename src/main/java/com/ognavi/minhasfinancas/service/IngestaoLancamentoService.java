@@ -0,0 +1,16 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.util.Optional;
+
+import com.ognavi.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+
+public interface IngestaoLancamentoService {
+
+	boolean isHabilitada();
+	
+	SituacaoIngestaoDTO enfileirar(Lancamento lancamento);
+	
+	Optional<SituacaoIngestaoDTO> obterSituacao(String id);
+	
+}
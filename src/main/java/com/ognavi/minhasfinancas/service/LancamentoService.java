@@ -2,8 +2,12 @@ package com.ognavi.minhasfinancas.service;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.PaginaDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
 import com.ognavi.minhasfinancas.model.entity.Lancamento;
 import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
 
@@ -11,18 +15,34 @@ public interface LancamentoService {
 
 	Lancamento salvar(Lancamento lancamento);
 	
+	Map<Integer, String> salvarLote(List<Lancamento> lancamentos);
+	
 	Lancamento atualizar(Lancamento lancamento);
 	
+	int atualizar(Lancamento lancamento, Long idUsuario);
+	
+	int atualizarParcialmente(Lancamento alteracoes, Long idUsuario);
+	
 	void deletar(Lancamento lancamento);
 	
-	List<Lancamento> buscar( Lancamento lancamentoFiltro );
+	int deletar(Long id, Long idUsuario);
+	
+	List<LancamentoDTO> buscar( Lancamento lancamentoFiltro );
+	
+	PaginaDTO<LancamentoDTO> buscar( Lancamento lancamentoFiltro, String cursor, Integer tamanho );
 	
 	void atualizarStatus(Lancamento lancamento, StatusLancamento status);
 	
+	int atualizarStatusEmLote(List<Long> ids, Lancamento lancamentoFiltro, StatusLancamento status);
+	
 	void validar(Lancamento lancamento);
 	
 	Optional<Lancamento> obterPorId(Long id);
 	
+	Optional<Long> obterIdUsuario(Long id);
+	
 	BigDecimal obterSaldoPorUsuario(Long id);
 	
+	List<SaldoPeriodoDTO> obterSaldoPorPeriodo(Long id, Integer ano, Integer mes, boolean agruparPorMes);
+	
 }
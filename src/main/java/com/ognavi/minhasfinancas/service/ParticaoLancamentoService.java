@@ -0,0 +1,7 @@
+package com.ognavi.minhasfinancas.service;
+
+public interface ParticaoLancamentoService {
+
+	int criarParticoes();
+
+}
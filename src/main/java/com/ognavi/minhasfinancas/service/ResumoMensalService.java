@@ -0,0 +1,25 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+
+public interface ResumoMensalService {
+
+	void registrarAlteracao(Lancamento anterior, Lancamento atual);
+
+	void registrarInclusoes(Collection<Lancamento> lancamentos);
+
+	void registrarAlteracaoDeStatus(Collection<ResumoMensal> anteriores, StatusLancamento status);
+
+	void registrarVariacoes(Collection<ResumoMensal> variacoes);
+
+	List<ResumoMensalDTO> obterResumo(Long idUsuario, Integer meses);
+
+	int reconstruir();
+
+}
@@ -0,0 +1,22 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioService {
+
+	void registrarAlteracao(Lancamento anterior, Lancamento atual);
+
+	void registrarVariacoes(Collection<SaldoUsuario> variacoes);
+
+	Optional<BigDecimal> obterSaldo(Long idUsuario);
+
+	SaldoUsuario recalcular(Long idUsuario);
+
+	int verificarSaldos();
+
+}
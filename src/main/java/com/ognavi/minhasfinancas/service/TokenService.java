@@ -0,0 +1,13 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.util.Optional;
+
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+
+public interface TokenService {
+
+	String gerarToken(Usuario usuario);
+	
+	Optional<Long> validarToken(String token);
+	
+}
@@ -0,0 +1,20 @@
+package com.ognavi.minhasfinancas.service;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface VersaoUsuarioService {
+
+	void registrarAlteracao(Collection<Long> idsUsuario);
+
+	long obterVersao(Long idUsuario);
+
+	String obterEtag(Long idUsuario);
+
+	String obterEtag(Long idUsuario, Long idLancamento);
+
+	Optional<Long> obterUsuarioDaEtag(String etag);
+
+	boolean naoModificado(String ifNoneMatch, String etag);
+
+}
@@ -0,0 +1,134 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.enums.FormatoExportacao;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.service.ExportacaoService;
+
+@Service
+public class ExportacaoServiceImpl implements ExportacaoService {
+
+	private static final String CABECALHO_CSV = "id,descricao,mes,ano,valor,usuario,tipo,status";
+	
+	private LancamentoRepository repository;
+	private EntityManager entityManager;
+	private ObjectMapper objectMapper;
+	private JsonFactory smileFactory = new SmileFactory();
+	private JsonFactory cborFactory = new CBORFactory();
+	
+	public ExportacaoServiceImpl(LancamentoRepository repository, EntityManager entityManager, ObjectMapper objectMapper) {
+		this.repository = repository;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+	}
+	
+	@Override
+	@Transactional(readOnly = true) //o cursor do banco só fica aberto dentro da transação
+	public void exportarLancamentos(Long idUsuario, FormatoExportacao formato, OutputStream saida) throws IOException {
+		try (Stream<Lancamento> lancamentos = repository.streamPorUsuario(idUsuario)) {
+			Iterator<Lancamento> iterator = lancamentos.iterator();
+			
+			switch (formato) {
+			case CSV:
+				escreverCsv(iterator, saida);
+				break;
+			case NDJSON:
+				escreverObjetos(iterator, objectMapper.getFactory().createGenerator(saida));
+				break;
+			case SMILE:
+				escreverObjetos(iterator, smileFactory.createGenerator(saida));
+				break;
+			default:
+				escreverObjetos(iterator, cborFactory.createGenerator(saida));
+			}
+		}
+	}
+	
+	private void escreverCsv(Iterator<Lancamento> lancamentos, OutputStream saida) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+		writer.write(CABECALHO_CSV);
+		writer.write('\n');
+		
+		while (lancamentos.hasNext()) {
+			Lancamento lancamento = lancamentos.next();
+			writer.write(String.valueOf(lancamento.getId()));
+			writer.write(',');
+			writer.write(campoCsv(lancamento.getDescricao()));
+			writer.write(',');
+			writer.write(String.valueOf(lancamento.getMes()));
+			writer.write(',');
+			writer.write(String.valueOf(lancamento.getAno()));
+			writer.write(',');
+			writer.write(lancamento.getValor() == null ? "" : lancamento.getValor().toPlainString());
+			writer.write(',');
+			writer.write(String.valueOf(lancamento.getUsuario().getId()));
+			writer.write(',');
+			writer.write(lancamento.getTipo() == null ? "" : lancamento.getTipo().name());
+			writer.write(',');
+			writer.write(lancamento.getStatus() == null ? "" : lancamento.getStatus().name());
+			writer.write('\n');
+			
+			//libera a entidade do contexto de persistência para o heap não crescer com o histórico
+			entityManager.detach(lancamento);
+		}
+		writer.flush();
+	}
+	
+	//mesmos campos do LancamentoDTO, um objeto por linha no JSON e uma sequência de objetos nos formatos binários
+	private void escreverObjetos(Iterator<Lancamento> lancamentos, JsonGenerator generator) throws IOException {
+		boolean texto = !generator.canWriteBinaryNatively();
+		if(texto) {
+			generator.setRootValueSeparator(null);
+		}
+		
+		while (lancamentos.hasNext()) {
+			Lancamento lancamento = lancamentos.next();
+			generator.writeStartObject();
+			generator.writeObjectField("id", lancamento.getId());
+			generator.writeStringField("descricao", lancamento.getDescricao());
+			generator.writeObjectField("mes", lancamento.getMes());
+			generator.writeObjectField("ano", lancamento.getAno());
+			generator.writeObjectField("valor", lancamento.getValor());
+			generator.writeObjectField("usuario", lancamento.getUsuario().getId());
+			generator.writeStringField("tipo", lancamento.getTipo() == null ? null : lancamento.getTipo().name());
+			generator.writeStringField("status", lancamento.getStatus() == null ? null : lancamento.getStatus().name());
+			generator.writeEndObject();
+			if(texto) {
+				generator.writeRaw('\n');
+			}
+			
+			entityManager.detach(lancamento);
+		}
+		generator.flush();
+	}
+	
+	private String campoCsv(String valor) {
+		if(valor == null) {
+			return "";
+		}
+		if(valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+			return valor;
+		}
+		return "\"" + valor.replace("\"", "\"\"") + "\"";
+	}
+	
+}
@@ -0,0 +1,96 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ognavi.minhasfinancas.exception.ChaveIdempotenciaException;
+import com.ognavi.minhasfinancas.service.IdempotenciaService;
+
+/**
+ * Guarda em memória o resultado de cada chave de idempotência (cabeçalho Idempotency-Key) pelo tempo de expiração.
+ * Mesmo esquema dos caches de usuário: o mapa recebe um futuro, e só quem o inseriu executa; as repetições
+ * concorrentes aguardam o mesmo futuro. O bloqueio é por entrada do mapa do Caffeine, não global.
+ */
+@Service
+public class IdempotenciaServiceImpl implements IdempotenciaService {
+
+	private Cache<String, Execucao> execucoes;
+	private long esperaMaximaMs;
+
+	public IdempotenciaServiceImpl(
+			@Value("${minhasfinancas.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+			@Value("${minhasfinancas.idempotencia.expiracao-minutos:60}") long expiracaoMinutos,
+			@Value("${minhasfinancas.idempotencia.espera-maxima-ms:30000}") long esperaMaximaMs) {
+		this.execucoes = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(expiracaoMinutos, TimeUnit.MINUTES)
+				.build();
+		this.esperaMaximaMs = esperaMaximaMs;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T executar(String chave, Object requisicao, Supplier<T> execucao, Predicate<T> reaproveitavel) {
+		Execucao nova = new Execucao(requisicao);
+		Execucao existente = execucoes.asMap().putIfAbsent(chave, nova);
+
+		if(existente != null) {
+			if(!existente.requisicao.equals(requisicao)) {
+				throw new ChaveIdempotenciaException("Chave de idempotência já utilizada em outra requisição!", false);
+			}
+			return (T) aguardar(existente);
+		}
+
+		T resultado;
+		try {
+			resultado = execucao.get();
+		} catch (RuntimeException e) {
+			execucoes.asMap().remove(chave, nova);
+			nova.resultado.completeExceptionally(e);
+			throw e;
+		}
+
+		if(!reaproveitavel.test(resultado)) {
+			execucoes.asMap().remove(chave, nova);
+		}
+		nova.resultado.complete(resultado);
+		return resultado;
+	}
+
+	private Object aguardar(Execucao execucao) {
+		try {
+			return execucao.resultado.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new ChaveIdempotenciaException("A requisição com esta chave de idempotência ainda está em andamento!", true);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ChaveIdempotenciaException("A requisição com esta chave de idempotência ainda está em andamento!", true);
+		} catch (ExecutionException e) {
+			//a repetição concorrente recebe a mesma falha da primeira execução
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static final class Execucao {
+
+		private final Object requisicao;
+		private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+
+		private Execucao(Object requisicao) {
+			this.requisicao = requisicao;
+		}
+	}
+
+}
@@ -0,0 +1,276 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ognavi.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.ognavi.minhasfinancas.exception.FilaCheiaException;
+import com.ognavi.minhasfinancas.exception.IngestaoEncerradaException;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.enums.SituacaoIngestao;
+import com.ognavi.minhasfinancas.service.IngestaoLancamentoService;
+import com.ognavi.minhasfinancas.service.LancamentoService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Inclusão assíncrona de lançamentos (minhasfinancas.ingestao.assincrona.habilitada=true): o lançamento é validado
+ * na requisição e colocado em uma fila limitada em memória; uma única thread grava a fila em lotes pelo salvarLote,
+ * a cada intervalo ou ao juntar o tamanho máximo do lote. Com a fila cheia a inclusão é recusada, e no encerramento
+ * a fila deixa de aceitar e é gravada por inteiro antes de a thread terminar.
+ * A fila não é durável: lançamentos aceitos e ainda não gravados se perdem se o processo cair, por isso o cliente
+ * acompanha a situação de cada inclusão pelo id devolvido.
+ */
+@Service
+public class IngestaoLancamentoServiceImpl implements IngestaoLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(IngestaoLancamentoServiceImpl.class);
+
+	private LancamentoService lancamentoService;
+	private ObjectProvider<MeterRegistry> meterRegistry;
+	private boolean habilitada;
+	private int capacidade;
+	private int tamanhoLote;
+	private long intervaloMs;
+
+	private BlockingQueue<Pendente> fila;
+	//vagas contam a fila e o lote em gravação, assim a capacidade limita tudo o que foi aceito e não gravado
+	private Semaphore vagas;
+	private Cache<String, SituacaoIngestaoDTO> situacoes;
+	private volatile boolean aceitando;
+	private Thread gravador;
+
+	public IngestaoLancamentoServiceImpl(LancamentoService lancamentoService, ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${minhasfinancas.ingestao.assincrona.habilitada:false}") boolean habilitada,
+			@Value("${minhasfinancas.ingestao.fila.capacidade:10000}") int capacidade,
+			@Value("${minhasfinancas.ingestao.lote.tamanho-maximo:500}") int tamanhoLote,
+			@Value("${minhasfinancas.ingestao.lote.intervalo-ms:200}") long intervaloMs,
+			@Value("${minhasfinancas.ingestao.situacao.tamanho-maximo:100000}") long tamanhoMaximoSituacoes,
+			@Value("${minhasfinancas.ingestao.situacao.expiracao-minutos:60}") long expiracaoMinutosSituacoes) {
+		this.lancamentoService = lancamentoService;
+		this.meterRegistry = meterRegistry;
+		this.habilitada = habilitada;
+		this.capacidade = capacidade;
+		this.tamanhoLote = tamanhoLote;
+		this.intervaloMs = intervaloMs;
+		this.fila = new LinkedBlockingQueue<>();
+		this.vagas = new Semaphore(capacidade);
+		this.situacoes = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximoSituacoes)
+				.expireAfterWrite(expiracaoMinutosSituacoes, TimeUnit.MINUTES)
+				.build();
+		this.aceitando = habilitada;
+	}
+
+	@PostConstruct
+	public void iniciar() {
+		if(!habilitada) {
+			return;
+		}
+		meterRegistry.ifAvailable( registry -> Gauge.builder("minhasfinancas.ingestao.fila", vagas, livres -> capacidade - livres.availablePermits())
+				.description("Lançamentos aceitos e ainda não gravados")
+				.register(registry) );
+
+		gravador = new Thread(this::gravarContinuamente, "ingestao-lancamentos");
+		gravador.setDaemon(true);
+		gravador.start();
+		log.info("Inclusão assíncrona de lançamentos habilitada: fila de {}, lotes de até {} a cada {} ms.",
+				capacidade, tamanhoLote, intervaloMs);
+	}
+
+	//para de aceitar e grava o que já estava na fila antes de o contexto fechar o datasource
+	@PreDestroy
+	public void encerrar() throws InterruptedException {
+		aceitando = false;
+		if(gravador == null) {
+			return;
+		}
+		gravador.join(TimeUnit.SECONDS.toMillis(30));
+		if(pendentes() > 0) {
+			log.warn("{} lançamentos aceitos não foram gravados no encerramento.", pendentes());
+		}
+	}
+
+	@Override
+	public boolean isHabilitada() {
+		return habilitada;
+	}
+
+	@Override
+	public SituacaoIngestaoDTO enfileirar(Lancamento lancamento) {
+		lancamentoService.validar(lancamento);
+
+		SituacaoIngestaoDTO situacao = SituacaoIngestaoDTO.builder()
+				.id(UUID.randomUUID().toString())
+				.situacao(SituacaoIngestao.PENDENTE)
+				.usuario(lancamento.getUsuario().getId())
+				.build();
+
+		if(!vagas.tryAcquire()) {
+			throw new FilaCheiaException("Fila de inclusão de lançamentos cheia, tente novamente em instantes.",
+					Math.max(1, TimeUnit.MILLISECONDS.toSeconds(intervaloMs)));
+		}
+		//conferido depois de ocupar a vaga: se o encerramento ainda não foi visto aqui, a thread de gravação
+		//verá a vaga ocupada e aguarda o lançamento entrar na fila antes de terminar
+		if(!aceitando) {
+			vagas.release();
+			throw new IngestaoEncerradaException("Inclusão assíncrona de lançamentos encerrada, tente novamente em instantes.");
+		}
+		//registrada antes de entrar na fila, assim a situação pendente nunca sobrescreve a situação final
+		situacoes.put(situacao.getId(), situacao);
+		fila.add(new Pendente(situacao.getId(), lancamento));
+		return situacao;
+	}
+
+	@Override
+	public Optional<SituacaoIngestaoDTO> obterSituacao(String id) {
+		return Optional.ofNullable(situacoes.getIfPresent(id));
+	}
+
+	//grava um lote com o que já está na fila, sem aguardar; utilizado também nos testes
+	public int gravarPendentes() {
+		List<Pendente> lote = new ArrayList<>(tamanhoLote);
+		fila.drainTo(lote, tamanhoLote);
+		gravar(lote);
+		return lote.size();
+	}
+
+	private void gravarContinuamente() {
+		while (aceitando || pendentes() > 0) {
+			try {
+				gravar(aguardarLote());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				log.error("Falha na gravação assíncrona de lançamentos.", e);
+			}
+		}
+	}
+
+	//aguarda o primeiro lançamento e completa o lote até o tamanho máximo ou até o intervalo contado a partir dele
+	private List<Pendente> aguardarLote() throws InterruptedException {
+		List<Pendente> lote = new ArrayList<>(tamanhoLote);
+		Pendente primeiro = fila.poll(intervaloMs, TimeUnit.MILLISECONDS);
+		if(primeiro == null) {
+			return lote;
+		}
+		lote.add(primeiro);
+
+		long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+		while (lote.size() < tamanhoLote) {
+			fila.drainTo(lote, tamanhoLote - lote.size());
+			long restante = limite - System.nanoTime();
+			if(lote.size() >= tamanhoLote || restante <= 0) {
+				break;
+			}
+			Pendente proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+			if(proximo == null) {
+				break;
+			}
+			lote.add(proximo);
+		}
+		return lote;
+	}
+
+	//na fila ou ainda entrando nela
+	private int pendentes() {
+		return capacidade - vagas.availablePermits();
+	}
+
+	private void gravar(List<Pendente> lote) {
+		if(lote.isEmpty()) {
+			return;
+		}
+		try {
+			gravarLote(lote);
+		} finally {
+			vagas.release(lote.size());
+		}
+	}
+	
+	private void gravarLote(List<Pendente> lote) {
+
+		List<Lancamento> lancamentos = new ArrayList<>(lote.size());
+		lote.forEach( pendente -> lancamentos.add(pendente.lancamento) );
+
+		Map<Integer, String> erros;
+		try {
+			erros = lancamentoService.salvarLote(lancamentos);
+		} catch (RuntimeException e) {
+			//a falha desfaz o lote inteiro: cada lançamento é gravado na própria transação para isolar o que falhou
+			log.warn("Falha ao gravar lote de {} lançamentos, gravando individualmente.", lote.size(), e);
+			lote.forEach(this::gravarIndividualmente);
+			return;
+		}
+
+		for (int i = 0; i < lote.size(); i++) {
+			Pendente pendente = lote.get(i);
+			if(erros.containsKey(i)) {
+				registrarErro(pendente, erros.get(i));
+			} else {
+				registrarGravacao(pendente);
+			}
+		}
+	}
+
+	private void gravarIndividualmente(Pendente pendente) {
+		//o id gerado pela sequence no lote desfeito não existe no banco
+		pendente.lancamento.setId(null);
+		try {
+			lancamentoService.salvar(pendente.lancamento);
+			registrarGravacao(pendente);
+		} catch (RuntimeException e) {
+			registrarErro(pendente, e.getMessage());
+		}
+	}
+
+	private void registrarGravacao(Pendente pendente) {
+		atualizarSituacao(pendente, SituacaoIngestao.GRAVADO, pendente.lancamento.getId(), null);
+	}
+
+	private void registrarErro(Pendente pendente, String erro) {
+		atualizarSituacao(pendente, SituacaoIngestao.ERRO, null, erro);
+	}
+
+	private void atualizarSituacao(Pendente pendente, SituacaoIngestao situacao, Long idLancamento, String erro) {
+		situacoes.put(pendente.id, SituacaoIngestaoDTO.builder()
+				.id(pendente.id)
+				.situacao(situacao)
+				.usuario(pendente.lancamento.getUsuario().getId())
+				.lancamento(idLancamento)
+				.erro(erro)
+				.build());
+	}
+
+	private static final class Pendente {
+
+		private final String id;
+		private final Lancamento lancamento;
+
+		private Pendente(String id, Lancamento lancamento) {
+			this.id = id;
+			this.lancamento = lancamento;
+		}
+	}
+
+}
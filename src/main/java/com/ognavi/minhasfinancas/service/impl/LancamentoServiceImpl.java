@@ -1,30 +1,65 @@
 package com.ognavi.minhasfinancas.service.impl;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
-import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.PaginaDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
 import com.ognavi.minhasfinancas.exception.RegraNegocioException;
 import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
 import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
 import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
 import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.PadraoLike;
 import com.ognavi.minhasfinancas.service.LancamentoService;
+import com.ognavi.minhasfinancas.service.ResumoMensalService;
+import com.ognavi.minhasfinancas.service.SaldoUsuarioService;
+import com.ognavi.minhasfinancas.service.VersaoUsuarioService;
 
 @Service
 public class LancamentoServiceImpl implements LancamentoService {
 
 	private LancamentoRepository repository;
+	private SaldoUsuarioService saldoUsuarioService;
+	private ResumoMensalService resumoMensalService;
+	private VersaoUsuarioService versaoUsuarioService;
 	
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	@Value("${minhasfinancas.lancamentos.pagina.tamanho-padrao:50}")
+	private int tamanhoPaginaPadrao = 50;
+	
+	@Value("${minhasfinancas.lancamentos.pagina.tamanho-maximo:500}")
+	private int tamanhoPaginaMaximo = 500;
+	
+	@Value("${minhasfinancas.lancamentos.lote.tamanho-maximo:5000}")
+	private int tamanhoLoteMaximo = 5000;
+	
+	public LancamentoServiceImpl(LancamentoRepository repository, SaldoUsuarioService saldoUsuarioService,
+			ResumoMensalService resumoMensalService, VersaoUsuarioService versaoUsuarioService) {
 		this.repository = repository;
+		this.saldoUsuarioService = saldoUsuarioService;
+		this.resumoMensalService = resumoMensalService;
+		this.versaoUsuarioService = versaoUsuarioService;
 	}
 	
 	@Override
@@ -32,7 +67,40 @@ public class LancamentoServiceImpl implements LancamentoService {
 	public Lancamento salvar(Lancamento lancamento) {
 		validar(lancamento);
 		lancamento.setStatus(StatusLancamento.PENDENTE);
-		return repository.save(lancamento);
+		Lancamento lancamentoSalvo = repository.save(lancamento);
+		saldoUsuarioService.registrarAlteracao(null, lancamentoSalvo);
+		resumoMensalService.registrarAlteracao(null, lancamentoSalvo);
+		versaoUsuarioService.registrarAlteracao(usuarios(lancamentoSalvo));
+		return lancamentoSalvo;
+	}
+
+	@Override
+	@Transactional
+	public Map<Integer, String> salvarLote(List<Lancamento> lancamentos) {
+		if(lancamentos.size() > tamanhoLoteMaximo) {
+			throw new RegraNegocioException("O lote deve ter no máximo " + tamanhoLoteMaximo + " lançamentos!");
+		}
+		
+		//erros de validação por posição na lista, os demais lançamentos são gravados
+		Map<Integer, String> erros = new LinkedHashMap<>();
+		List<Lancamento> validos = new ArrayList<>(lancamentos.size());
+		for (int i = 0; i < lancamentos.size(); i++) {
+			Lancamento lancamento = lancamentos.get(i);
+			try {
+				validar(lancamento);
+				lancamento.setStatus(StatusLancamento.PENDENTE);
+				validos.add(lancamento);
+			} catch (RegraNegocioException e) {
+				erros.put(i, e.getMessage());
+			}
+		}
+		
+		//os inserts são enviados em lotes de hibernate.jdbc.batch_size no flush
+		repository.saveAll(validos);
+		validos.forEach( lancamento -> saldoUsuarioService.registrarAlteracao(null, lancamento) );
+		resumoMensalService.registrarInclusoes(validos);
+		versaoUsuarioService.registrarAlteracao(usuarios(validos.toArray(new Lancamento[0])));
+		return erros;
 	}
 
 	@Override
@@ -40,70 +108,280 @@ public class LancamentoServiceImpl implements LancamentoService {
 	public Lancamento atualizar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());	//vai garantir que vai ser passado um lançamento com id
 		validar(lancamento);
-		return repository.save(lancamento);
+		
+		//valores gravados antes do merge, lidos por projeção: a entidade recebida pode ser a mesma instância gerenciada já alterada
+		Lancamento anterior = obterAnterior(lancamento.getId(), null);
+		Lancamento lancamentoAtualizado = repository.save(lancamento);
+		saldoUsuarioService.registrarAlteracao(anterior, lancamento);
+		resumoMensalService.registrarAlteracao(anterior, lancamento);
+		versaoUsuarioService.registrarAlteracao(usuarios(anterior, lancamento));
+		return lancamentoAtualizado;
 	}
 
+	@Override
+	@Transactional
+	public int atualizar(Lancamento lancamento, Long idUsuario) {
+		Objects.requireNonNull(lancamento.getId());	//vai garantir que vai ser passado um lançamento com id
+		validar(lancamento);
+		
+		//os valores anteriores vêm de uma projeção e a alteração é um UPDATE condicional: a entidade não é carregada nem mesclada
+		Lancamento anterior = obterAnterior(lancamento.getId(), idUsuario);
+		if(anterior == null) {
+			return 0;
+		}
+		if(lancamento.getStatus() == null) {
+			lancamento.setStatus(anterior.getStatus());
+		}
+		
+		int atualizados = repository.atualizarCampos(lancamento, idUsuario);
+		if(atualizados > 0) {
+			saldoUsuarioService.registrarAlteracao(anterior, lancamento);
+			resumoMensalService.registrarAlteracao(anterior, lancamento);
+			versaoUsuarioService.registrarAlteracao(usuarios(anterior, lancamento));
+		}
+		return atualizados;
+	}
+	
 	@Override
 	@Transactional //vai abrir uma transação, executa o conteúdo do método, ao final faz um commit e se der algum erro faz um rollback
 	public void deletar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());	//vai garantir que vai ser passado um lançamento com id
 		repository.delete(lancamento);
-		
+		saldoUsuarioService.registrarAlteracao(lancamento, null);
+		resumoMensalService.registrarAlteracao(lancamento, null);
+		versaoUsuarioService.registrarAlteracao(usuarios(lancamento));
 	}
 
+	@Override
+	@Transactional
+	public int deletar(Long id, Long idUsuario) {
+		Lancamento anterior = obterAnterior(id, idUsuario);
+		if(anterior == null) {
+			return 0;
+		}
+		
+		int excluidos = repository.deletarPorId(id, idUsuario);
+		if(excluidos > 0) {
+			saldoUsuarioService.registrarAlteracao(anterior, null);
+			resumoMensalService.registrarAlteracao(anterior, null);
+			versaoUsuarioService.registrarAlteracao(usuarios(anterior));
+		}
+		return excluidos;
+	}
+	
 	@Override
 	@Transactional(readOnly = true) 
-	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-		Example example = Example.of(lancamentoFiltro, ExampleMatcher
-				.matching()
-				.withIgnoreCase()
-				.withStringMatcher(StringMatcher.CONTAINING));
-		return repository.findAll(example);
+	public List<LancamentoDTO> buscar(Lancamento lancamentoFiltro) {
+		if(lancamentoFiltro.getUsuario() == null || lancamentoFiltro.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um Usuário!");
+		}
+		
+		//mesmo critério da busca por exemplo (descrição contendo, sem diferenciar maiúsculas), projetado no DTO
+		return repository.buscarResumo(
+				lancamentoFiltro.getUsuario().getId(),
+				PadraoLike.contendo(lancamentoFiltro.getDescricao()),
+				lancamentoFiltro.getAno(),
+				lancamentoFiltro.getMes());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public PaginaDTO<LancamentoDTO> buscar(Lancamento lancamentoFiltro, String cursor, Integer tamanho) {
+		int limite = tamanho == null ? tamanhoPaginaPadrao : Math.min(tamanho, tamanhoPaginaMaximo);
+		if(limite < 1) {
+			throw new RegraNegocioException("Informe um Tamanho de página válido!");
+		}
+		
+		//sem cursor começa do início, (0, 0, 0) antecede qualquer lançamento válido
+		Lancamento posicao = cursor == null ? Lancamento.builder().ano(0).mes(0).id(0l).build() : decodificarCursor(cursor);
+		
+		//busca um item a mais apenas para saber se existe próxima página
+		List<LancamentoDTO> lancamentos = repository.buscarPagina(
+				lancamentoFiltro.getUsuario().getId(),
+				PadraoLike.contendo(lancamentoFiltro.getDescricao()),
+				lancamentoFiltro.getAno(),
+				lancamentoFiltro.getMes(),
+				posicao.getAno(), posicao.getMes(), posicao.getId(),
+				PageRequest.of(0, limite + 1));
+		
+		if(lancamentos.size() <= limite) {
+			return new PaginaDTO<>(lancamentos, null);
+		}
+		
+		List<LancamentoDTO> pagina = new ArrayList<>(lancamentos.subList(0, limite));
+		return new PaginaDTO<>(pagina, codificarCursor(pagina.get(limite - 1)));
 	}
 
 	@Override
+	@Transactional
 	public void atualizarStatus(Lancamento lancamento, StatusLancamento status) {
 		lancamento.setStatus(status);
 		atualizar(lancamento);
 	}
 
 	@Override
-	public void validar(Lancamento lancamento) {
+	@Transactional
+	public int atualizarStatusEmLote(List<Long> ids, Lancamento lancamentoFiltro, StatusLancamento status) {
+		if(status == null) {
+			throw new RegraNegocioException("Informe um Status válido!");
+		}
 		
-		if(lancamento.getDescricao() == null || lancamento.getDescricao().trim().equals("")) {
-			throw new RegraNegocioException("Informe uma Descrição válida!");
+		Long idUsuario = lancamentoFiltro.getUsuario() == null ? null : lancamentoFiltro.getUsuario().getId();
+		boolean porIds = ids != null && !ids.isEmpty();
+		if(!porIds && idUsuario == null) {
+			throw new RegraNegocioException("Informe os lançamentos ou um Usuário!");
+		}
+		if(porIds && ids.size() > tamanhoLoteMaximo) {
+			throw new RegraNegocioException("O lote deve ter no máximo " + tamanhoLoteMaximo + " lançamentos!");
 		}
 		
-		if(lancamento.getMes() == null || lancamento.getMes() < 1 || lancamento.getMes() > 12) {
-			throw new RegraNegocioException("Informe um Mês válido!");
+		//somente a entrada ou a saída do status EFETIVADO altera o saldo consolidado
+		boolean efetivando = status == StatusLancamento.EFETIVADO;
+		Set<StatusLancamento> statusAtuais = efetivando
+				? EnumSet.complementOf(EnumSet.of(StatusLancamento.EFETIVADO))
+				: EnumSet.of(StatusLancamento.EFETIVADO);
+		
+		//as linhas são bloqueadas antes dos totais: uma alteração concorrente dos mesmos lançamentos espera o commit,
+		//e os totais e o UPDATE veem a mesma versão de cada linha
+		List<Long> bloqueados = porIds
+				? repository.bloquearPorIdsEStatusDiferente(ids, idUsuario, status)
+				: repository.bloquearPorPeriodoEStatusDiferente(idUsuario, lancamentoFiltro.getAno(), lancamentoFiltro.getMes(), status);
+		
+		Map<Long, SaldoUsuario> variacoes = new LinkedHashMap<>();
+		List<ResumoMensal> resumosAnteriores = new ArrayList<>();
+		int atualizados = 0;
+		//o período pode ter mais lançamentos do que cabem em um IN, os ids seguem em partes do tamanho máximo do lote
+		for (int inicio = 0; inicio < bloqueados.size(); inicio += tamanhoLoteMaximo) {
+			List<Long> parte = bloqueados.subList(inicio, Math.min(inicio + tamanhoLoteMaximo, bloqueados.size()));
+			//uma única variação por usuário: a primeira cria o consolidado a partir da tabela, já com todas as partes
+			repository.obterTotaisPorIdsEStatus(parte, null, statusAtuais).forEach( total -> variacoes.merge(total.getIdUsuario(), total,
+					(atual, outro) -> new SaldoUsuario(atual.getIdUsuario(), atual.getReceitas().add(outro.getReceitas()),
+							atual.getDespesas().add(outro.getDespesas())) ) );
+			resumosAnteriores.addAll(repository.obterResumoPorIdsEStatusDiferente(parte, null, status));
+			atualizados += repository.atualizarStatusPorIds(parte, null, status);
 		}
 		
-		if(lancamento.getAno() == null || lancamento.getAno().toString().length() != 4) {
-			throw new RegraNegocioException("Informe um Ano válido!");
+		if(!efetivando) {
+			variacoes.values().forEach( variacao -> {
+				variacao.setReceitas(variacao.getReceitas().negate());
+				variacao.setDespesas(variacao.getDespesas().negate());
+			});
+		}
+		saldoUsuarioService.registrarVariacoes(variacoes.values());
+		resumoMensalService.registrarAlteracaoDeStatus(resumosAnteriores, status);
+		versaoUsuarioService.registrarAlteracao(resumosAnteriores.stream().map(ResumoMensal::getIdUsuario).collect(Collectors.toSet()));
+		return atualizados;
+	}
+
+	@Override
+	@Transactional
+	public int atualizarParcialmente(Lancamento alteracoes, Long idUsuario) {
+		Objects.requireNonNull(alteracoes.getId());	//vai garantir que vai ser passado um lançamento com id
+		
+		boolean alteraSaldo = alteracoes.getValor() != null || alteracoes.getTipo() != null || alteracoes.getStatus() != null;
+		boolean alteraResumo = alteraSaldo || alteracoes.getAno() != null || alteracoes.getMes() != null;
+		if(!alteraResumo && alteracoes.getDescricao() == null) {
+			throw new RegraNegocioException("Informe ao menos um campo para alterar!");
+		}
+		
+		//valida apenas os campos enviados
+		if(alteracoes.getDescricao() != null) validarDescricao(alteracoes.getDescricao());
+		if(alteracoes.getMes() != null) validarMes(alteracoes.getMes());
+		if(alteracoes.getAno() != null) validarAno(alteracoes.getAno());
+		if(alteracoes.getValor() != null) validarValor(alteracoes.getValor());
+		
+		//somente a descrição não altera o saldo nem o resumo mensal: um único UPDATE, sem carregar o lançamento
+		if(!alteraResumo) {
+			int atualizados = repository.atualizarCampos(alteracoes, idUsuario);
+			if(atualizados > 0) {
+				Long idDono = idUsuario != null ? idUsuario : repository.obterIdUsuario(alteracoes.getId()).orElse(null);
+				versaoUsuarioService.registrarAlteracao(Arrays.asList(idDono));
+			}
+			return atualizados;
+		}
+		
+		//valores anteriores por projeção, sem carregar a entidade, como no atualizar(lancamento, idUsuario)
+		Lancamento anterior = obterAnterior(alteracoes.getId(), idUsuario);
+		if(anterior == null) {
+			return 0;
 		}
 		
+		int atualizados = repository.atualizarCampos(alteracoes, idUsuario);
+		if(atualizados > 0) {
+			Lancamento atual = copiar(anterior);
+			if(alteracoes.getValor() != null) atual.setValor(alteracoes.getValor());
+			if(alteracoes.getTipo() != null) atual.setTipo(alteracoes.getTipo());
+			if(alteracoes.getStatus() != null) atual.setStatus(alteracoes.getStatus());
+			if(alteracoes.getAno() != null) atual.setAno(alteracoes.getAno());
+			if(alteracoes.getMes() != null) atual.setMes(alteracoes.getMes());
+			saldoUsuarioService.registrarAlteracao(anterior, atual);
+			resumoMensalService.registrarAlteracao(anterior, atual);
+			versaoUsuarioService.registrarAlteracao(usuarios(anterior));
+		}
+		return atualizados;
+	}
+
+	@Override
+	public void validar(Lancamento lancamento) {
+		validarDescricao(lancamento.getDescricao());
+		validarMes(lancamento.getMes());
+		validarAno(lancamento.getAno());
+		
 		if(lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null) {
 			throw new RegraNegocioException("Informe um Usuário!");
 		}
 		
-		if(lancamento.getValor() == null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1) {
-			throw new RegraNegocioException("Informe um Valor válido!");
-		}
+		validarValor(lancamento.getValor());
 		
 		if(lancamento.getTipo() == null ) {
 			throw new RegraNegocioException("Informe um Tipo de Lançamento!");
 		}
 	}
+	
+	private void validarDescricao(String descricao) {
+		if(descricao == null || descricao.trim().equals("")) {
+			throw new RegraNegocioException("Informe uma Descrição válida!");
+		}
+	}
+	
+	private void validarMes(Integer mes) {
+		if(mes == null || mes < 1 || mes > 12) {
+			throw new RegraNegocioException("Informe um Mês válido!");
+		}
+	}
+	
+	private void validarAno(Integer ano) {
+		if(ano == null || ano.toString().length() != 4) {
+			throw new RegraNegocioException("Informe um Ano válido!");
+		}
+	}
+	
+	private void validarValor(BigDecimal valor) {
+		if(valor == null || valor.compareTo(BigDecimal.ZERO) < 1) {
+			throw new RegraNegocioException("Informe um Valor válido!");
+		}
+	}
 
 	@Override
 	public Optional<Lancamento> obterPorId(Long id) {
 		return repository.findById(id);
 	}
 
+	@Override
+	public Optional<Long> obterIdUsuario(Long id) {
+		return repository.obterIdUsuario(id);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public BigDecimal obterSaldoPorUsuario(Long id) {
 		
+		Optional<BigDecimal> saldoConsolidado = saldoUsuarioService.obterSaldo(id);
+		if(saldoConsolidado.isPresent()) {
+			return saldoConsolidado.get();
+		}
+		
+		//usuário ainda sem saldo consolidado, calcula a partir dos lançamentos
 		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
 		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
 		
@@ -118,4 +396,68 @@ public class LancamentoServiceImpl implements LancamentoService {
 		return receitas.subtract(despesas);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public List<SaldoPeriodoDTO> obterSaldoPorPeriodo(Long id, Integer ano, Integer mes, boolean agruparPorMes) {
+		//uma única consulta agrupada, receitas e despesas somadas condicionalmente
+		if(agruparPorMes) {
+			return repository.obterSaldoPorMesEStatus(id, ano, mes);
+		}
+		return repository.obterSaldoPorStatus(id, ano, mes);
+	}
+	
+	private String codificarCursor(LancamentoDTO lancamento) {
+		String posicao = lancamento.getAno() + ":" + lancamento.getMes() + ":" + lancamento.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private Lancamento decodificarCursor(String cursor) {
+		try {
+			String[] posicao = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+			return Lancamento.builder()
+						.ano(Integer.valueOf(posicao[0]))
+						.mes(Integer.valueOf(posicao[1]))
+						.id(Long.valueOf(posicao[2]))
+						.build();
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new RegraNegocioException("Cursor de paginação inválido!");
+		}
+	}
+	
+	//usuários cuja versão deve avançar, ignorando lançamentos sem usuário
+	private Set<Long> usuarios(Lancamento... lancamentos) {
+		return Stream.of(lancamentos)
+				.filter( lancamento -> lancamento != null && lancamento.getUsuario() != null )
+				.map( lancamento -> lancamento.getUsuario().getId() )
+				.collect(Collectors.toSet());
+	}
+	
+	//somente os campos usados no saldo e no resumo mensal; null quando não existe ou é de outro usuário
+	//a linha fica bloqueada até o commit: o UPDATE ou DELETE seguinte altera a mesma versão lida aqui
+	private Lancamento obterAnterior(Long id, Long idUsuario) {
+		return repository.obterResumoPorId(id, idUsuario)
+				.map( dto -> Lancamento.builder()
+						.id(dto.getId())
+						.usuario(Usuario.builder().id(dto.getUsuario()).build())
+						.ano(dto.getAno())
+						.mes(dto.getMes())
+						.valor(dto.getValor())
+						.tipo(dto.getTipo() == null ? null : TipoLancamento.valueOf(dto.getTipo()))
+						.status(dto.getStatus() == null ? null : StatusLancamento.valueOf(dto.getStatus()))
+						.build() )
+				.orElse(null);
+	}
+	
+	private Lancamento copiar(Lancamento lancamento) {
+		return Lancamento.builder()
+					.id(lancamento.getId())
+					.usuario(lancamento.getUsuario())
+					.ano(lancamento.getAno())
+					.mes(lancamento.getMes())
+					.valor(lancamento.getValor())
+					.tipo(lancamento.getTipo())
+					.status(lancamento.getStatus())
+					.build();
+	}
+
 }
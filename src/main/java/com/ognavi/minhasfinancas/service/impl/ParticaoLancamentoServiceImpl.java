@@ -0,0 +1,68 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.time.Year;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.service.ParticaoLancamentoService;
+
+/**
+ * Mantém criadas as partições de lançamento do ano atual e dos próximos (minhasfinancas.particoes.anos-futuros).
+ * A migração V5 só criou as partições até cinco anos depois da sua execução; sem esta rotina, os anos seguintes
+ * iriam para a partição padrão, que é lida em toda consulta por período.
+ */
+@Service
+public class ParticaoLancamentoServiceImpl implements ParticaoLancamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(ParticaoLancamentoServiceImpl.class);
+
+	private LancamentoRepository repository;
+	private TransactionTemplate transacao;
+
+	@Value("${minhasfinancas.particoes.anos-futuros:2}")
+	private int anosFuturos = 2;
+
+	public ParticaoLancamentoServiceImpl(LancamentoRepository repository, PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.transacao = new TransactionTemplate(transactionManager);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void aoIniciar() {
+		criarParticoes();
+	}
+
+	//uma transação por ano: mover as linhas da partição padrão bloqueia a tabela só durante aquele ano
+	@Override
+	@Scheduled(cron = "${minhasfinancas.particoes.criacao.cron:0 0 4 1 * *}")
+	public int criarParticoes() {
+		int anoAtual = Year.now().getValue();
+		int verificadas = 0;
+		for (int ano = anoAtual; ano <= anoAtual + anosFuturos; ano++) {
+			int anoParticao = ano;
+			try {
+				if(!transacao.execute( status -> repository.criarParticaoAno(anoParticao) )) {
+					//banco sem particionamento, nenhum ano a criar
+					return 0;
+				}
+				verificadas++;
+			} catch (DataAccessException e) {
+				//os anos seguintes ainda são tentados, a próxima execução tenta este de novo
+				log.warn("Partição de lançamentos do ano {} não criada: {}", anoParticao, e.getMessage());
+			}
+		}
+		log.info("Partições de lançamentos verificadas de {} a {}: {} ano(s).", anoAtual, anoAtual + anosFuturos, verificadas);
+		return verificadas;
+	}
+
+}
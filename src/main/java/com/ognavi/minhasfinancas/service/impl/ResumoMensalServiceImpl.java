@@ -0,0 +1,167 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.ognavi.minhasfinancas.exception.RegraNegocioException;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensalId;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.ognavi.minhasfinancas.service.ResumoMensalService;
+
+@Service
+public class ResumoMensalServiceImpl implements ResumoMensalService {
+
+	private static final Logger log = LoggerFactory.getLogger(ResumoMensalServiceImpl.class);
+
+	private ResumoMensalRepository repository;
+	private LancamentoRepository lancamentoRepository;
+	private TransactionTemplate transacao;
+
+	@Value("${minhasfinancas.resumo.meses-padrao:24}")
+	private int mesesPadrao = 24;
+
+	@Value("${minhasfinancas.resumo.meses-maximo:120}")
+	private int mesesMaximo = 120;
+
+	public ResumoMensalServiceImpl(ResumoMensalRepository repository, LancamentoRepository lancamentoRepository,
+			PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.transacao = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	@Transactional //deve ser chamado na mesma transação que gravou o lançamento
+	public void registrarAlteracao(Lancamento anterior, Lancamento atual) {
+		Map<ResumoMensalId, ResumoMensal> variacoes = new LinkedHashMap<>();
+		acumular(variacoes, anterior, -1);
+		acumular(variacoes, atual, 1);
+		registrarVariacoes(variacoes.values());
+	}
+
+	//lançamentos do mesmo mês, tipo e status viram um único incremento
+	@Override
+	@Transactional
+	public void registrarInclusoes(Collection<Lancamento> lancamentos) {
+		Map<ResumoMensalId, ResumoMensal> variacoes = new LinkedHashMap<>();
+		lancamentos.forEach( lancamento -> acumular(variacoes, lancamento, 1) );
+		registrarVariacoes(variacoes.values());
+	}
+
+	//cada grupo sai do status atual e entra no novo status, sem carregar os lançamentos
+	@Override
+	@Transactional
+	public void registrarAlteracaoDeStatus(Collection<ResumoMensal> anteriores, StatusLancamento status) {
+		Map<ResumoMensalId, ResumoMensal> variacoes = new LinkedHashMap<>();
+		for (ResumoMensal anterior : anteriores) {
+			somar(variacoes, anterior.getChave(), anterior.getTotal().negate(), -anterior.getQuantidade());
+			ResumoMensalId novaChave = anterior.getChave();
+			novaChave.setStatus(status);
+			somar(variacoes, novaChave, anterior.getTotal(), anterior.getQuantidade());
+		}
+		registrarVariacoes(variacoes.values());
+	}
+
+	@Override
+	@Transactional
+	public void registrarVariacoes(Collection<ResumoMensal> variacoes) {
+		for (ResumoMensal variacao : variacoes) {
+			if(variacao.getTotal().signum() == 0 && variacao.getQuantidade() == 0) {
+				continue;
+			}
+
+			int atualizados = repository.incrementar(variacao.getIdUsuario(), variacao.getAno(), variacao.getMes(),
+					variacao.getTipo(), variacao.getStatus(), variacao.getTotal(), variacao.getQuantidade());
+
+			//primeiro lançamento da chave: o resumo é criado a partir da tabela, que já contém a alteração;
+			//se uma transação concorrente criar a chave antes, recebe apenas a variação desta
+			if(atualizados == 0) {
+				repository.inserirOuIncrementar(calcular(variacao.getChave()), variacao);
+			}
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<ResumoMensalDTO> obterResumo(Long idUsuario, Integer meses) {
+		int quantidade = meses == null ? mesesPadrao : meses;
+		if(quantidade < 1 || quantidade > mesesMaximo) {
+			throw new RegraNegocioException("Informe uma quantidade de meses entre 1 e " + mesesMaximo + "!");
+		}
+
+		//mês atual e os (quantidade - 1) anteriores
+		YearMonth fim = YearMonth.now();
+		YearMonth inicio = fim.minusMonths(quantidade - 1);
+		return repository.buscarPorPeriodo(idUsuario,
+				inicio.getYear(), inicio.getMonthValue(),
+				fim.getYear(), fim.getMonthValue());
+	}
+
+	//reconstrução a partir da tabela de lançamentos, corrige divergências de escritas concorrentes
+	//uma transação curta por usuário: as gravações dos demais usuários não esperam pela reconstrução inteira
+	@Override
+	@Scheduled(cron = "${minhasfinancas.resumo.reconstrucao.cron:0 30 3 * * *}")
+	public int reconstruir() {
+		int chaves = 0;
+		int ignorados = 0;
+		for (Long idUsuario : repository.obterUsuariosComLancamentosOuResumo()) {
+			try {
+				chaves += transacao.execute( status -> {
+					repository.excluirPorUsuario(idUsuario);
+					return repository.inserirAPartirDosLancamentos(idUsuario);
+				});
+			} catch (DataIntegrityViolationException e) {
+				//uma inclusão concorrente criou uma chave do usuário no meio da reconstrução: o resumo dele fica como estava
+				ignorados++;
+				log.warn("Resumo mensal do usuário {} não reconstruído por uma gravação concorrente.", idUsuario);
+			}
+		}
+		log.info("Resumo mensal reconstruído com {} chave(s), {} usuário(s) ignorado(s).", chaves, ignorados);
+		return chaves;
+	}
+
+	private ResumoMensal calcular(ResumoMensalId chave) {
+		return lancamentoRepository
+				.obterResumoMensal(chave.getIdUsuario(), chave.getAno(), chave.getMes(), chave.getTipo(), chave.getStatus())
+				.orElseGet( () -> new ResumoMensal(chave.getIdUsuario(), chave.getAno(), chave.getMes(),
+						chave.getTipo(), chave.getStatus(), BigDecimal.ZERO, 0l) );
+	}
+
+	private void acumular(Map<ResumoMensalId, ResumoMensal> variacoes, Lancamento lancamento, int sinal) {
+		if(lancamento == null || lancamento.getValor() == null || lancamento.getTipo() == null || lancamento.getStatus() == null
+				|| lancamento.getAno() == null || lancamento.getMes() == null) {
+			return;
+		}
+
+		ResumoMensalId chave = new ResumoMensalId(lancamento.getUsuario().getId(), lancamento.getAno(), lancamento.getMes(),
+				lancamento.getTipo(), lancamento.getStatus());
+		somar(variacoes, chave, lancamento.getValor().multiply(BigDecimal.valueOf(sinal)), sinal);
+	}
+
+	private void somar(Map<ResumoMensalId, ResumoMensal> variacoes, ResumoMensalId chave, BigDecimal total, long quantidade) {
+		ResumoMensal variacao = variacoes.computeIfAbsent(chave, id -> new ResumoMensal(id.getIdUsuario(), id.getAno(), id.getMes(),
+				id.getTipo(), id.getStatus(), BigDecimal.ZERO, 0l));
+		variacao.setTotal(variacao.getTotal().add(total));
+		variacao.setQuantidade(variacao.getQuantidade() + quantidade);
+	}
+
+}
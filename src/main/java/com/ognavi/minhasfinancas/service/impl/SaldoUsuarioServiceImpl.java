@@ -0,0 +1,149 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.ognavi.minhasfinancas.service.SaldoUsuarioService;
+
+@Service
+public class SaldoUsuarioServiceImpl implements SaldoUsuarioService {
+
+	private static final Logger log = LoggerFactory.getLogger(SaldoUsuarioServiceImpl.class);
+
+	private SaldoUsuarioRepository repository;
+	private LancamentoRepository lancamentoRepository;
+	private TransactionTemplate transacao;
+
+	public SaldoUsuarioServiceImpl(SaldoUsuarioRepository repository, LancamentoRepository lancamentoRepository,
+			PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.transacao = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	@Transactional //deve ser chamado na mesma transação que gravou o lançamento
+	public void registrarAlteracao(Lancamento anterior, Lancamento atual) {
+		Map<Long, SaldoUsuario> variacoes = new LinkedHashMap<>();
+		acumular(variacoes, anterior, BigDecimal.ONE.negate());
+		acumular(variacoes, atual, BigDecimal.ONE);
+		registrarVariacoes(variacoes.values());
+	}
+
+	@Override
+	@Transactional
+	public void registrarVariacoes(Collection<SaldoUsuario> variacoes) {
+		for (SaldoUsuario variacao : variacoes) {
+			if(variacao.getReceitas().signum() == 0 && variacao.getDespesas().signum() == 0) {
+				continue;
+			}
+
+			int atualizados = repository.incrementar(variacao.getIdUsuario(), variacao.getReceitas(), variacao.getDespesas());
+
+			//primeiro movimento do usuário: o consolidado é criado a partir da tabela, que já contém a alteração;
+			//se uma transação concorrente criar a linha antes, recebe apenas a variação desta
+			if(atualizados == 0) {
+				SaldoUsuario inicial = lancamentoRepository
+						.obterSaldoConsolidadoPorUsuario(variacao.getIdUsuario())
+						.orElseGet( () -> new SaldoUsuario(variacao.getIdUsuario(), BigDecimal.ZERO, BigDecimal.ZERO) );
+				repository.inserirOuIncrementar(inicial, variacao);
+			}
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<BigDecimal> obterSaldo(Long idUsuario) {
+		return repository.findById(idUsuario).map(SaldoUsuario::getSaldo);
+	}
+
+	@Override
+	@Transactional
+	public SaldoUsuario recalcular(Long idUsuario) {
+		corrigir(idUsuario);
+		return repository.findById(idUsuario)
+				.orElseGet( () -> new SaldoUsuario(idUsuario, BigDecimal.ZERO, BigDecimal.ZERO) );
+	}
+
+	//uma transação curta por usuário: as gravações dos demais usuários não esperam pela verificação inteira
+	@Override
+	@Scheduled(cron = "${minhasfinancas.saldo.verificacao.cron:0 0 3 * * *}")
+	public int verificarSaldos() {
+		int divergentes = 0;
+		for (Long idUsuario : repository.obterUsuariosComSaldoOuEfetivados()) {
+			if(transacao.execute( status -> corrigir(idUsuario) )) {
+				divergentes++;
+			}
+		}
+
+		if(divergentes > 0) {
+			log.warn("Verificação de saldos corrigiu {} usuário(s) com saldo divergente.", divergentes);
+		}
+		return divergentes;
+	}
+
+	//re-deriva os totais da tabela de lançamentos com a linha do consolidado bloqueada: uma gravação que já
+	//incrementou o saldo terminou antes e está na soma; uma que ainda vai incrementar soma a sua variação depois
+	private boolean corrigir(Long idUsuario) {
+		Optional<SaldoUsuario> consolidado = repository.obterParaAtualizacao(idUsuario);
+		SaldoUsuario calculado = lancamentoRepository.obterSaldoConsolidadoPorUsuario(idUsuario)
+				.orElseGet( () -> new SaldoUsuario(idUsuario, BigDecimal.ZERO, BigDecimal.ZERO) );
+
+		if(!consolidado.isPresent()) {
+			if(calculado.getReceitas().signum() == 0 && calculado.getDespesas().signum() == 0) {
+				return false;
+			}
+			//sem linha para bloquear: se uma gravação concorrente criar o consolidado antes, ele fica como está
+			repository.inserirOuIncrementar(calculado, new SaldoUsuario(idUsuario, BigDecimal.ZERO, BigDecimal.ZERO));
+			return true;
+		}
+
+		if(!divergente(consolidado.get(), calculado)) {
+			return false;
+		}
+		consolidado.get().setReceitas(calculado.getReceitas());
+		consolidado.get().setDespesas(calculado.getDespesas());
+		return true;
+	}
+
+	private void acumular(Map<Long, SaldoUsuario> variacoes, Lancamento lancamento, BigDecimal sinal) {
+		//apenas lançamentos efetivados compõem o saldo
+		if(lancamento == null || lancamento.getStatus() != StatusLancamento.EFETIVADO || lancamento.getValor() == null) {
+			return;
+		}
+
+		Long idUsuario = lancamento.getUsuario().getId();
+		SaldoUsuario variacao = variacoes.computeIfAbsent(idUsuario,
+				id -> new SaldoUsuario(id, BigDecimal.ZERO, BigDecimal.ZERO));
+
+		BigDecimal valor = lancamento.getValor().multiply(sinal);
+		if(lancamento.getTipo() == TipoLancamento.RECEITA) {
+			variacao.setReceitas(variacao.getReceitas().add(valor));
+		} else if(lancamento.getTipo() == TipoLancamento.DESPESA) {
+			variacao.setDespesas(variacao.getDespesas().add(valor));
+		}
+	}
+
+	private boolean divergente(SaldoUsuario consolidado, SaldoUsuario calculado) {
+		return consolidado.getReceitas().compareTo(calculado.getReceitas()) != 0
+				|| consolidado.getDespesas().compareTo(calculado.getDespesas()) != 0;
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.service.TokenService;
+
+@Service
+public class TokenServiceImpl implements TokenService {
+
+	private static final Logger log = LoggerFactory.getLogger(TokenServiceImpl.class);
+	private static final String ALGORITMO = "HmacSHA256";
+	
+	private final SecretKeySpec chave;
+	private final long expiracaoSegundos;
+	
+	public TokenServiceImpl(
+			@Value("${minhasfinancas.seguranca.token.segredo:}") String segredo,
+			@Value("${minhasfinancas.seguranca.token.expiracao-segundos:3600}") long expiracaoSegundos) {
+		this.chave = new SecretKeySpec(segredoOuAleatorio(segredo), ALGORITMO);
+		this.expiracaoSegundos = expiracaoSegundos;
+	}
+	
+	@Override
+	public String gerarToken(Usuario usuario) {
+		long expiraEm = Instant.now().getEpochSecond() + expiracaoSegundos;
+		String conteudo = codificar((usuario.getId() + ":" + expiraEm).getBytes(StandardCharsets.UTF_8));
+		return conteudo + "." + codificar(assinar(conteudo));
+	}
+
+	@Override
+	public Optional<Long> validarToken(String token) {
+		//a verificação é local, sem consulta ao banco
+		int separador = token == null ? -1 : token.indexOf('.');
+		if(separador < 1) {
+			return Optional.empty();
+		}
+		
+		String conteudo = token.substring(0, separador);
+		try {
+			byte[] assinatura = Base64.getUrlDecoder().decode(token.substring(separador + 1));
+			if(!MessageDigest.isEqual(assinatura, assinar(conteudo))) {
+				return Optional.empty();
+			}
+			
+			String[] campos = new String(Base64.getUrlDecoder().decode(conteudo), StandardCharsets.UTF_8).split(":");
+			if(Long.parseLong(campos[1]) < Instant.now().getEpochSecond()) {
+				return Optional.empty();
+			}
+			return Optional.of(Long.valueOf(campos[0]));
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			return Optional.empty();
+		}
+	}
+	
+	private byte[] assinar(String conteudo) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITMO);
+			mac.init(chave);
+			return mac.doFinal(conteudo.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static String codificar(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+	
+	private static byte[] segredoOuAleatorio(String segredo) {
+		if(segredo != null && !segredo.isEmpty()) {
+			return segredo.getBytes(StandardCharsets.UTF_8);
+		}
+		
+		//sem segredo configurado os tokens só valem para esta instância e até ela reiniciar
+		log.warn("minhasfinancas.seguranca.token.segredo não configurado, utilizando um segredo aleatório.");
+		byte[] aleatorio = new byte[32];
+		new SecureRandom().nextBytes(aleatorio);
+		return aleatorio;
+	}
+	
+}
@@ -1,35 +1,63 @@
 package com.ognavi.minhasfinancas.service.impl;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ognavi.minhasfinancas.exception.ErroAutenticacao;
 import com.ognavi.minhasfinancas.exception.RegraNegocioException;
 import com.ognavi.minhasfinancas.model.entity.Usuario;
 import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
 import com.ognavi.minhasfinancas.service.UsuarioService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 @Service
 public class UsuarioServiceImpl implements UsuarioService {
 
 	private UsuarioRepository repository;
+	private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+	
+	//usuários mudam muito pouco e são consultados em toda escrita de lançamento
+	private AsyncCache<Long, Usuario> cachePorId;
+	private AsyncCache<String, Usuario> cachePorEmail;
 	
-	public UsuarioServiceImpl(UsuarioRepository repository) {
+	public UsuarioServiceImpl(UsuarioRepository repository, ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${minhasfinancas.cache.usuario.tamanho-maximo:10000}") long tamanhoMaximo,
+			@Value("${minhasfinancas.cache.usuario.expiracao-segundos:600}") long expiracaoSegundos) {
 		super();
 		this.repository = repository;
+		this.cachePorId = criarCache(tamanhoMaximo, expiracaoSegundos);
+		this.cachePorEmail = criarCache(tamanhoMaximo, expiracaoSegundos);
+		
+		//acertos, faltas e remoções dos caches ficam em cache.gets, cache.evictions etc., com a tag cache
+		meterRegistry.ifAvailable(registry -> {
+			CaffeineCacheMetrics.monitor(registry, cachePorId.synchronous(), "usuarioPorId");
+			CaffeineCacheMetrics.monitor(registry, cachePorEmail.synchronous(), "usuarioPorEmail");
+		});
 	}
 
 	@Override
 	public Usuario autenticar(String email, String senha) {
-		Optional<Usuario> usuario = repository.findByEmail(email);
+		Optional<Usuario> usuario = obterDoCache(cachePorEmail, email, repository::findByEmail);
 		
 		if(!usuario.isPresent()) {
 			throw new ErroAutenticacao("Usuário não encontrado para o email informado!");
 		}
 		
-		if(!usuario.get().getSenha().equals(senha)) {
+		if(!senhaConfere(usuario.get(), senha)) {
 			throw new ErroAutenticacao("Senha inválida!");
 		}
 		
@@ -40,12 +68,17 @@ public class UsuarioServiceImpl implements UsuarioService {
 	@Transactional
 	public Usuario salvarUsuario(Usuario usuario) {
 		validarEmail(usuario.getEmail());
-		return repository.save(usuario);
+		if(usuario.getSenha() != null) {
+			usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
+		}
+		Usuario usuarioSalvo = repository.save(usuario);
+		invalidar(usuarioSalvo);
+		return usuarioSalvo;
 	}
 
 	@Override
 	public void validarEmail(String email) {
-		boolean existe = repository.existsByEmail(email);
+		boolean existe = (email != null && cachePorEmail.synchronous().getIfPresent(email) != null) || repository.existsByEmail(email);
 		if(existe) {
 			throw new RegraNegocioException("Já existe um usuário cadastrado com este email!");
 		}
@@ -53,7 +86,71 @@ public class UsuarioServiceImpl implements UsuarioService {
 
 	@Override
 	public Optional<Usuario> obterPorId(Long id) {
-		return repository.findById(id);
+		//o banco só é consultado quando o usuário não está no cache, ausências não são guardadas
+		return obterDoCache(cachePorId, id, repository::findById);
+	}
+	
+	private boolean senhaConfere(Usuario usuario, String senha) {
+		String senhaGravada = usuario.getSenha();
+		if(senhaGravada == null || senha == null) {
+			return false;
+		}
+		
+		if(senhaGravada.startsWith("$2a$") || senhaGravada.startsWith("$2b$") || senhaGravada.startsWith("$2y$")) {
+			return passwordEncoder.matches(senha, senhaGravada);
+		}
+		
+		//usuários cadastrados antes do hash: compara em texto e já grava a senha com BCrypt
+		if(!senhaGravada.equals(senha)) {
+			return false;
+		}
+		usuario.setSenha(passwordEncoder.encode(senha));
+		repository.save(usuario);
+		invalidar(usuario);
+		return true;
+	}
+	
+	//o Caffeine executa a função do cache.get dentro de um synchronized do ConcurrentHashMap, o que prenderia a
+	//thread virtual à thread da plataforma durante a consulta: o mapa recebe só um futuro e o banco é lido fora dele
+	private <K> Optional<Usuario> obterDoCache(AsyncCache<K, Usuario> cache, K chave, Function<K, Optional<Usuario>> consulta) {
+		CompletableFuture<Usuario> carga = new CompletableFuture<>();
+		CompletableFuture<Usuario> valor = cache.get(chave, (k, executor) -> carga);
+		
+		//futuros concluídos com null ou com erro são retirados do cache pelo próprio Caffeine
+		if(valor == carga) {
+			try {
+				carga.complete(consulta.apply(chave).orElse(null));
+			} catch (RuntimeException e) {
+				carga.completeExceptionally(e);
+				throw e;
+			}
+		}
+		
+		try {
+			return Optional.ofNullable(valor.join());
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+	}
+	
+	private void invalidar(Usuario usuario) {
+		if(usuario == null) {
+			return;
+		}
+		if(usuario.getId() != null) {
+			cachePorId.synchronous().invalidate(usuario.getId());
+		}
+		if(usuario.getEmail() != null) {
+			cachePorEmail.synchronous().invalidate(usuario.getEmail());
+		}
+	}
+	
+	private static <K> AsyncCache<K, Usuario> criarCache(long tamanhoMaximo, long expiracaoSegundos) {
+		return Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(expiracaoSegundos, TimeUnit.SECONDS)
+				.recordStats()
+				.buildAsync();
 	}
 	
 }
@@ -0,0 +1,150 @@
+package com.ognavi.minhasfinancas.service.impl;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ognavi.minhasfinancas.config.RoteamentoDataSource;
+import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
+import com.ognavi.minhasfinancas.service.VersaoUsuarioService;
+
+/**
+ * Versão crescente por usuário, incrementada na mesma transação de toda gravação de lançamentos.
+ * As consultas de lançamentos e saldo usam a ETag W/"usuário.versão" (W/"usuário.versão.lançamento" na consulta
+ * de um único lançamento): enquanto a versão não muda,
+ * o If-None-Match do cliente é respondido com 304 sem executar a consulta.
+ */
+@Service
+public class VersaoUsuarioServiceImpl implements VersaoUsuarioService {
+
+	private static final Pattern ETAG = Pattern.compile("(?:W/)?\"(\\d+)\\.(\\d+)(?:\\.(\\d+))?\"");
+
+	private UsuarioRepository repository;
+
+	//gravações desta instância invalidam a entrada ao confirmar; as de outras instâncias aparecem ao expirar
+	private AsyncCache<Long, Long> cache;
+
+	//somente com réplicas de leitura configuradas
+	private ObjectProvider<RoteamentoDataSource> roteamento;
+
+	public VersaoUsuarioServiceImpl(UsuarioRepository repository,
+			ObjectProvider<RoteamentoDataSource> roteamento,
+			@Value("${minhasfinancas.cache.versao.tamanho-maximo:10000}") long tamanhoMaximo,
+			@Value("${minhasfinancas.cache.versao.expiracao-segundos:5}") long expiracaoSegundos) {
+		this.repository = repository;
+		this.roteamento = roteamento;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(expiracaoSegundos, TimeUnit.SECONDS)
+				.buildAsync();
+	}
+
+	@Override
+	@Transactional //deve ser chamado na mesma transação que gravou os lançamentos
+	public void registrarAlteracao(Collection<Long> idsUsuario) {
+		Set<Long> ids = new HashSet<>(idsUsuario);
+		ids.remove(null);
+		if(ids.isEmpty()) {
+			return;
+		}
+		repository.incrementarVersao(ids);
+		invalidarAoConfirmar(ids);
+		//os donos dos lançamentos leem do primário até a réplica alcançar esta gravação
+		roteamento.ifAvailable(roteamentoDataSource -> roteamentoDataSource.registrarEscrita(ids));
+	}
+
+	//mesmo esquema do cache de usuários: o mapa recebe só um futuro e o banco é lido fora do lock
+	//sem transação somente leitura, a versão é lida do primário: uma réplica atrasada geraria um 304 com conteúdo antigo
+	@Override
+	public long obterVersao(Long idUsuario) {
+		CompletableFuture<Long> carga = new CompletableFuture<>();
+		CompletableFuture<Long> valor = cache.get(idUsuario, (k, executor) -> carga);
+
+		if(valor == carga) {
+			try {
+				Long versao = repository.obterVersao(idUsuario);
+				carga.complete(versao == null ? 0l : versao);
+			} catch (RuntimeException e) {
+				carga.completeExceptionally(e);
+				throw e;
+			}
+		}
+
+		try {
+			return valor.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
+	@Override
+	public String obterEtag(Long idUsuario) {
+		return "W/\"" + idUsuario + "." + obterVersao(idUsuario) + "\"";
+	}
+
+	//um único lançamento: o id entra na ETag para que a de um lançamento não valide a consulta de outro do mesmo usuário
+	@Override
+	public String obterEtag(Long idUsuario, Long idLancamento) {
+		return "W/\"" + idUsuario + "." + obterVersao(idUsuario) + "." + idLancamento + "\"";
+	}
+
+	//considera a primeira ETag enviada no If-None-Match
+	@Override
+	public Optional<Long> obterUsuarioDaEtag(String etag) {
+		Matcher matcher = etag == null ? null : ETAG.matcher(etag.split(",")[0].trim());
+		if(matcher == null || !matcher.matches()) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(Long.valueOf(matcher.group(1)));
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+
+	//comparação fraca: W/"1.5" e "1.5" correspondem à mesma versão
+	@Override
+	public boolean naoModificado(String ifNoneMatch, String etag) {
+		if(ifNoneMatch == null || etag == null) {
+			return false;
+		}
+		String valor = etag.startsWith("W/") ? etag.substring(2) : etag;
+		for (String enviada : ifNoneMatch.split(",")) {
+			String atual = enviada.trim();
+			if(atual.equals("*") || atual.equals(valor) || atual.equals("W/" + valor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//uma leitura concorrente ainda pode guardar a versão anterior até a confirmação, por isso invalida depois do commit
+	private void invalidarAoConfirmar(Set<Long> ids) {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			cache.synchronous().invalidateAll(ids);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				cache.synchronous().invalidateAll(ids);
+			}
+		});
+	}
+
+}
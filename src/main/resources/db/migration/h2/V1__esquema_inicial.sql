@@ -0,0 +1,34 @@
+-- esquema equivalente ao do PostgreSQL para os testes em memória (sem particionamento e sem índice de trigramas)
+create schema if not exists financas;
+
+create table financas.usuario (
+	id bigint auto_increment not null primary key,
+	nome varchar(150),
+	email varchar(100),
+	senha varchar(100),
+	data_cadastro date default current_date
+);
+
+create sequence financas.lancamento_id_seq increment by 50;
+
+create table financas.lancamento (
+	id bigint not null primary key,
+	descricao varchar(100) not null,
+	mes integer not null,
+	ano integer not null,
+	valor numeric(16,2) not null,
+	tipo varchar(20) not null check ( tipo in ('RECEITA', 'DESPESA') ),
+	status varchar(20) not null check ( status in ('PENDENTE', 'CANCELADO', 'EFETIVADO') ),
+	id_usuario bigint not null references financas.usuario (id),
+	data_cadastro date default current_date
+);
+
+create table financas.saldo_usuario (
+	id_usuario bigint not null primary key references financas.usuario (id),
+	receitas numeric(16,2) not null default 0,
+	despesas numeric(16,2) not null default 0
+);
+
+create index idx_lancamento_usuario_tipo_status on financas.lancamento ( id_usuario, tipo, status );
+create index idx_lancamento_usuario_ano_mes on financas.lancamento ( id_usuario, ano, mes, id );
+create index idx_usuario_email on financas.usuario ( email );
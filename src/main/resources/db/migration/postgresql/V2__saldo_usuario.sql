@@ -0,0 +1,5 @@
+create table if not exists financas.saldo_usuario (
+	id_usuario bigint not null primary key references financas.usuario (id),
+	receitas numeric(16,2) not null default 0,
+	despesas numeric(16,2) not null default 0
+);
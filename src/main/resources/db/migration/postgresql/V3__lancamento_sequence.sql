@@ -0,0 +1,2 @@
+-- o Hibernate reserva blocos de 50 ids por chamada (otimizador pooled), permitindo insert em lote
+alter sequence financas.lancamento_id_seq increment by 50;
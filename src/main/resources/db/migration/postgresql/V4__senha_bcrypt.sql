@@ -0,0 +1,2 @@
+-- o hash BCrypt das senhas possui 60 caracteres
+alter table financas.usuario alter column senha type character varying(100);
@@ -0,0 +1,58 @@
+-- lancamento passa a ser particionada por faixa de ano: consultas por período leem apenas as partições do ano
+-- e anos antigos podem ser desanexados (alter table ... detach partition) sem apagar linha a linha
+alter table financas.lancamento rename to lancamento_legado;
+alter index if exists financas.lancamento_pkey rename to lancamento_legado_pkey;
+
+create table financas.lancamento (
+	id bigint not null default nextval('financas.lancamento_id_seq'),
+	descricao character varying(100) not null,
+	mes integer not null,
+	ano integer not null,
+	valor numeric(16,2) not null,
+	tipo character varying(20) check ( tipo in ('RECEITA', 'DESPESA') ) not null,
+	status character varying(20) check ( status in ('PENDENTE', 'CANCELADO', 'EFETIVADO') ) not null,
+	id_usuario bigint references financas.usuario (id) not null,
+	data_cadastro date default now(),
+	-- a chave de particionamento precisa fazer parte da chave primária; o id continua único pela sequence
+	constraint lancamento_pkey primary key (id, ano)
+) partition by range (ano);
+
+-- cria a partição de um ano caso ainda não exista
+create or replace function financas.criar_particao_lancamento(p_ano integer) returns void as $$
+begin
+	execute format(
+		'create table if not exists financas.lancamento_%s partition of financas.lancamento for values from (%s) to (%s)',
+		p_ano, p_ano, p_ano + 1);
+end;
+$$ language plpgsql;
+
+-- partições para os anos existentes e os próximos cinco; anos fora dessa faixa vão para a partição padrão
+do $$
+declare
+	v_ano integer;
+	v_primeiro integer;
+	v_ultimo integer := extract(year from current_date)::integer + 5;
+begin
+	select least(coalesce(min(ano), extract(year from current_date)::integer), extract(year from current_date)::integer)
+		into v_primeiro
+		from financas.lancamento_legado
+		where ano between 1900 and 2999;
+	
+	v_ano := v_primeiro;
+	while v_ano <= v_ultimo loop
+		perform financas.criar_particao_lancamento(v_ano);
+		v_ano := v_ano + 1;
+	end loop;
+end;
+$$;
+
+create table financas.lancamento_padrao partition of financas.lancamento default;
+
+insert into financas.lancamento ( id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro )
+	select id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro
+	from financas.lancamento_legado;
+
+-- a sequence pertencia à tabela antiga e seria removida junto com ela
+alter sequence financas.lancamento_id_seq owned by financas.lancamento.id;
+
+drop table financas.lancamento_legado;
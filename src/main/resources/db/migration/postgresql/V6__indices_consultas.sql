@@ -0,0 +1,19 @@
+-- índices criados na tabela particionada são replicados em cada partição
+
+-- saldo por usuário, tipo e status (obterSaldoPorTipoLancamentoEUsuarioEStatus e saldo consolidado)
+create index if not exists idx_lancamento_usuario_tipo_status
+	on financas.lancamento ( id_usuario, tipo, status );
+
+-- busca e paginação por usuário, ano e mês, na mesma ordem do "order by l.ano, l.mes, l.id"
+create index if not exists idx_lancamento_usuario_ano_mes
+	on financas.lancamento ( id_usuario, ano, mes, id );
+
+-- índice de trigramas para a busca "contendo" da descrição: lower(descricao) like '%texto%'
+create extension if not exists pg_trgm;
+
+create index if not exists idx_lancamento_descricao_trgm
+	on financas.lancamento using gin ( lower(descricao) gin_trgm_ops );
+
+-- findByEmail e existsByEmail
+create index if not exists idx_usuario_email
+	on financas.usuario ( email );
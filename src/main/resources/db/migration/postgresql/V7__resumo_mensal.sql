@@ -0,0 +1,17 @@
+-- totais por usuário, mês, tipo e status, mantidos a cada gravação de lançamento (painel de resumo mensal)
+create table if not exists financas.resumo_mensal (
+	id_usuario bigint not null references financas.usuario (id),
+	ano integer not null,
+	mes integer not null,
+	tipo varchar(20) not null,
+	status varchar(20) not null,
+	total numeric(16,2) not null default 0,
+	quantidade bigint not null default 0,
+	primary key ( id_usuario, ano, mes, tipo, status )
+);
+
+-- carga inicial a partir dos lançamentos já existentes
+insert into financas.resumo_mensal ( id_usuario, ano, mes, tipo, status, total, quantidade )
+select id_usuario, ano, mes, tipo, status, sum(valor), count(*)
+from financas.lancamento
+group by id_usuario, ano, mes, tipo, status;
@@ -0,0 +1,2 @@
+-- versão das alterações de lançamentos de cada usuário, usada nas ETags das consultas
+alter table financas.usuario add column if not exists versao bigint not null default 0;
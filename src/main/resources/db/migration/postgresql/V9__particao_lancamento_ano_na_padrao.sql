@@ -0,0 +1,32 @@
+-- o postgres recusa criar a partição de um ano enquanto a partição padrão tiver linhas desse ano;
+-- nesse caso a padrão é desanexada, a partição é criada e as linhas do ano voltam pela tabela pai,
+-- que as encaminha para a nova partição, tudo na mesma transação
+create or replace function financas.criar_particao_lancamento(p_ano integer) returns void as $$
+begin
+	if to_regclass(format('financas.lancamento_%s', p_ano)) is not null then
+		return;
+	end if;
+
+	if not exists (select 1 from financas.lancamento_padrao where ano = p_ano) then
+		execute format(
+			'create table financas.lancamento_%s partition of financas.lancamento for values from (%s) to (%s)',
+			p_ano, p_ano, p_ano + 1);
+		return;
+	end if;
+
+	alter table financas.lancamento detach partition financas.lancamento_padrao;
+
+	execute format(
+		'create table financas.lancamento_%s partition of financas.lancamento for values from (%s) to (%s)',
+		p_ano, p_ano, p_ano + 1);
+
+	insert into financas.lancamento ( id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro )
+		select id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro
+		from financas.lancamento_padrao
+		where ano = p_ano;
+
+	delete from financas.lancamento_padrao where ano = p_ano;
+
+	alter table financas.lancamento attach partition financas.lancamento_padrao default;
+end;
+$$ language plpgsql;
@@ -0,0 +1,139 @@
+package com.ognavi.minhasfinancas.api.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.ognavi.minhasfinancas.api.filter.LimiteRequisicoesFilter.Limite;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LimiteRequisicoesFilterTest {
+
+	MeterRegistry registry;
+	AtomicBoolean sobrecarga;
+	LimiteRequisicoesFilter filter;
+
+	@Before
+	public void setUp() {
+		//recarga de um token a cada 1000 segundos: nenhum token volta durante o teste
+		registry = new SimpleMeterRegistry();
+		sobrecarga = new AtomicBoolean();
+		filter = new LimiteRequisicoesFilter(
+				new Limite("leitura", 2, 0.001),
+				new Limite("escrita", 1, 0.001),
+				new Limite("autenticacao", 1, 0.001),
+				0, sobrecarga::get, 100, 10, registry);
+	}
+
+	@Test
+	public void deveRecusarAsRequisicoesAlemDaCapacidadeDoBalde() {
+		BaldeTokens balde = new BaldeTokens(2, 10, 0);
+
+		assertThat(balde.consumir(0)).isZero();
+		assertThat(balde.consumir(0)).isZero();
+		assertThat(balde.consumir(0)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(balde.consumir(TimeUnit.MILLISECONDS.toNanos(100))).isZero();
+	}
+
+	@Test
+	public void deveLimitarCadaUsuarioComLimitesSeparadosParaLeituraEEscrita() throws Exception {
+		//execução
+		executar(requisicao("GET", "/api/lancamentos", 1l));
+		executar(requisicao("GET", "/api/lancamentos", 1l));
+		MockHttpServletResponse excedida = executar(requisicao("GET", "/api/lancamentos", 1l));
+		MockHttpServletResponse escrita = executar(requisicao("POST", "/api/lancamentos", 1l));
+		MockHttpServletResponse outroUsuario = executar(requisicao("GET", "/api/lancamentos", 2l));
+
+		//verificação
+		assertThat(excedida.getStatus()).isEqualTo(429);
+		assertThat(excedida.getHeader("Retry-After")).isEqualTo("1000");
+		assertThat(escrita.getStatus()).isEqualTo(200);
+		assertThat(outroUsuario.getStatus()).isEqualTo(200);
+		assertThat(registry.get(LimiteRequisicoesFilter.METRICA).tags("limite", "leitura", "resultado", "recusada").counter().count()).isEqualTo(1);
+		assertThat(registry.get(LimiteRequisicoesFilter.METRICA).tags("limite", "leitura", "resultado", "permitida").counter().count()).isEqualTo(3);
+	}
+
+	@Test
+	public void deveLimitarAAutenticacaoPeloIpMesmoComUsuario() throws Exception {
+		//cenário
+		MockHttpServletRequest primeira = requisicao("POST", "/api/usuarios/autenticar", null);
+		MockHttpServletRequest segunda = requisicao("POST", "/api/usuarios/autenticar", 1l);
+		MockHttpServletRequest outroIp = requisicao("POST", "/api/usuarios/autenticar", null);
+		outroIp.setRemoteAddr("10.0.0.2");
+
+		//execução e verificação
+		assertThat(executar(primeira).getStatus()).isEqualTo(200);
+		assertThat(executar(segunda).getStatus()).isEqualTo(429);
+		assertThat(executar(outroIp).getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void deveDescartarComServicoIndisponivelQuandoOPoolEstiverSobrecarregado() throws Exception {
+		//cenário
+		sobrecarga.set(true);
+
+		//execução
+		MockHttpServletResponse resposta = executar(requisicao("GET", "/api/lancamentos", 1l));
+
+		//verificação
+		assertThat(resposta.getStatus()).isEqualTo(503);
+		assertThat(resposta.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(registry.get(LimiteRequisicoesFilter.METRICA).tags("limite", "sobrecarga", "resultado", "recusada").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveManterARequisicaoAssincronaEmAndamentoAteConcluir() throws Exception {
+		//cenário
+		MockHttpServletRequest requisicao = requisicao("GET", "/api/lancamentos/exportar", 1l);
+		requisicao.setAsyncSupported(true);
+
+		//execução
+		filter.doFilter(requisicao, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+		double durante = registry.get("minhasfinancas.limite.em-andamento").gauge().value();
+		MockAsyncContext contexto = (MockAsyncContext) requisicao.getAsyncContext();
+		contexto.complete();
+		contexto.complete();
+
+		//verificação
+		assertThat(durante).isEqualTo(1);
+		assertThat(registry.get("minhasfinancas.limite.em-andamento").gauge().value()).isZero();
+	}
+
+	@Test
+	public void deveRecusarUmLimiteSemTaxaDeRecarga() {
+		//execução
+		Throwable semRecarga = catchThrowable( () -> new Limite("leitura", 100, 0) );
+		Throwable semCapacidade = catchThrowable( () -> new Limite("leitura", 0, 50) );
+
+		//verificação
+		assertThat(semRecarga).isInstanceOf(IllegalArgumentException.class);
+		assertThat(semCapacidade).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private MockHttpServletRequest requisicao(String metodo, String caminho, Long idUsuario) {
+		MockHttpServletRequest requisicao = new MockHttpServletRequest(metodo, caminho);
+		requisicao.setRemoteAddr("10.0.0.1");
+		if(idUsuario != null) {
+			requisicao.setAttribute(TokenAutenticacaoFilter.ATRIBUTO_USUARIO, idUsuario);
+		}
+		return requisicao;
+	}
+
+	private MockHttpServletResponse executar(MockHttpServletRequest requisicao) throws Exception {
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+		filter.doFilter(requisicao, resposta, new MockFilterChain());
+		return resposta;
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.ognavi.minhasfinancas.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.ognavi.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
+
+//aplicação completa sobre o H2: a requisição passa pelo resource, pelos serviços e pelo banco
+//a transação do teste mantém uma única sessão durante a requisição, como o open-in-view faria, e é desfeita ao final
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "minhasfinancas.limite.habilitado=false")
+@AutoConfigureMockMvc
+@Transactional
+public class LancamentoResourceTest {
+
+	static final String API = "/api/lancamentos";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	SaldoUsuarioRepository saldoUsuarioRepository;
+
+	@Test
+	public void deveRegistrarNoSaldoAEfetivacaoPeloAtualizaStatus() throws Exception {
+		//cenário
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("usuario").email("efetivacao@email.com").senha("senha").build());
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento = lancamentoRepository.save(lancamento);
+
+		//execução
+		mvc.perform( MockMvcRequestBuilders.put(API + "/" + lancamento.getId() + "/atualiza-status")
+				.contentType(JSON)
+				.content("{\"status\":\"EFETIVADO\"}") )
+			.andExpect( MockMvcResultMatchers.status().isOk() );
+
+		//verificação
+		SaldoUsuario saldo = saldoUsuarioRepository.findById(usuario.getId()).orElse(null);
+		assertThat(saldo).isNotNull();
+		assertThat(saldo.getReceitas()).isEqualByComparingTo(BigDecimal.valueOf(10));
+		assertThat(lancamentoRepository.obterResumoPorId(lancamento.getId(), null).get().getStatus())
+			.isEqualTo(StatusLancamento.EFETIVADO.name());
+	}
+
+	@Test
+	public void naoDeveValidarAConsultaDeUmLancamentoComAEtagDeOutro() throws Exception {
+		//cenário
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("usuario").email("etag@email.com").senha("senha").build());
+		Lancamento primeiro = LancamentoRepositoryTest.criarLancamento();
+		primeiro.setUsuario(usuario);
+		primeiro = lancamentoRepository.save(primeiro);
+		Lancamento segundo = LancamentoRepositoryTest.criarLancamento();
+		segundo.setUsuario(usuario);
+		segundo = lancamentoRepository.save(segundo);
+
+		String etag = mvc.perform( MockMvcRequestBuilders.get(API + "/" + primeiro.getId()) )
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		//execução e verificação
+		mvc.perform( MockMvcRequestBuilders.get(API + "/" + primeiro.getId()).header(HttpHeaders.IF_NONE_MATCH, etag) )
+			.andExpect( MockMvcResultMatchers.status().isNotModified() );
+		mvc.perform( MockMvcRequestBuilders.get(API + "/" + segundo.getId()).header(HttpHeaders.IF_NONE_MATCH, etag) )
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("id").value(segundo.getId()) );
+		mvc.perform( MockMvcRequestBuilders.get(API + "/0").header(HttpHeaders.IF_NONE_MATCH, etag) )
+			.andExpect( MockMvcResultMatchers.status().isNotFound() );
+	}
+
+	@Test
+	public void naoDeveCompartilharAChaveDeIdempotenciaEntreUsuariosSemToken() throws Exception {
+		//cenário
+		Usuario primeiro = usuarioRepository.save(Usuario.builder().nome("usuario").email("chave1@email.com").senha("senha").build());
+		Usuario segundo = usuarioRepository.save(Usuario.builder().nome("usuario").email("chave2@email.com").senha("senha").build());
+
+		//execução e verificação
+		mvc.perform( MockMvcRequestBuilders.post(API)
+				.contentType(JSON)
+				.header("Idempotency-Key", "mesma-chave")
+				.content(lancamentoJson(primeiro.getId())) )
+			.andExpect( MockMvcResultMatchers.status().isCreated() )
+			.andExpect( MockMvcResultMatchers.jsonPath("usuario.id").value(primeiro.getId()) );
+		mvc.perform( MockMvcRequestBuilders.post(API)
+				.contentType(JSON)
+				.header("Idempotency-Key", "mesma-chave")
+				.content(lancamentoJson(segundo.getId())) )
+			.andExpect( MockMvcResultMatchers.status().isCreated() )
+			.andExpect( MockMvcResultMatchers.jsonPath("usuario.id").value(segundo.getId()) );
+	}
+
+	@Test
+	public void deveResponderNaoEncontradoAoAtualizarParcialmenteUmLancamentoInexistente() throws Exception {
+		//execução e verificação
+		mvc.perform( MockMvcRequestBuilders.patch(API + "/0")
+				.contentType(JSON)
+				.content("{\"valor\":25}") )
+			.andExpect( MockMvcResultMatchers.status().isNotFound() );
+		mvc.perform( MockMvcRequestBuilders.delete(API + "/0") )
+			.andExpect( MockMvcResultMatchers.status().isNotFound() );
+	}
+
+	private static String lancamentoJson(Long idUsuario) {
+		return "{\"descricao\":\"Mercado\",\"mes\":1,\"ano\":2019,\"valor\":10,\"tipo\":\"DESPESA\",\"usuario\":" + idUsuario + "}";
+	}
+
+}
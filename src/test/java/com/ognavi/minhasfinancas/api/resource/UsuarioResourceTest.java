@@ -1,5 +1,11 @@
 package com.ognavi.minhasfinancas.api.resource;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -8,6 +14,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -15,13 +22,22 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
 import com.ognavi.minhasfinancas.api.dto.UsuarioDTO;
 import com.ognavi.minhasfinancas.exception.ErroAutenticacao;
 import com.ognavi.minhasfinancas.exception.RegraNegocioException;
 import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
 import com.ognavi.minhasfinancas.service.LancamentoService;
+import com.ognavi.minhasfinancas.service.ResumoMensalService;
+import com.ognavi.minhasfinancas.service.TokenService;
 import com.ognavi.minhasfinancas.service.UsuarioService;
+import com.ognavi.minhasfinancas.service.VersaoUsuarioService;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
@@ -41,6 +57,15 @@ public class UsuarioResourceTest {
 	@MockBean
 	LancamentoService lancamentoService;
 	
+	@MockBean
+	ResumoMensalService resumoMensalService;
+	
+	@MockBean
+	TokenService tokenService;
+	
+	@MockBean
+	VersaoUsuarioService versaoUsuarioService;
+	
 	@Test
 	public void deveAutenticarUmUsuario() throws Exception {
 		//cenario - como se fosse um backend
@@ -51,6 +76,7 @@ public class UsuarioResourceTest {
 		Usuario usuario = Usuario.builder().id(1l).email(email).senha(senha).build();
 		
 		Mockito.when(service.autenticar(email, senha)).thenReturn(usuario);
+		Mockito.when(tokenService.gerarToken(usuario)).thenReturn("token");
 		
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
@@ -67,6 +93,7 @@ public class UsuarioResourceTest {
 			.andExpect( MockMvcResultMatchers.jsonPath("id").value(usuario.getId()) )
 			.andExpect( MockMvcResultMatchers.jsonPath("nome").value(usuario.getNome()) )
 			.andExpect( MockMvcResultMatchers.jsonPath("email").value(usuario.getEmail()) )
+			.andExpect( MockMvcResultMatchers.header().string("Authorization", "Bearer token") )
 		;
 	}
 	
@@ -94,6 +121,117 @@ public class UsuarioResourceTest {
 		;
 	}
 	
+	@Test
+	public void deveObterOSaldoDetalhadoPorMes() throws Exception {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("usuario@email.com").build();
+		SaldoPeriodoDTO saldo = new SaldoPeriodoDTO(2019, 1, StatusLancamento.EFETIVADO, BigDecimal.valueOf(100), BigDecimal.valueOf(30));
+		
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(usuario));
+		Mockito.when(lancamentoService.obterSaldoPorPeriodo(1l, 2019, null, true)).thenReturn(Arrays.asList(saldo));
+		Mockito.when(versaoUsuarioService.obterEtag(1l)).thenReturn("W/\"1.3\"");
+		
+		//execução e verificação
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+													.get(API.concat("/1/saldo?ano=2019&agrupar=mes"))
+													.accept( JSON );
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].mes").value(1) )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].status").value("EFETIVADO") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].saldo").value(70) )
+			.andExpect( MockMvcResultMatchers.header().string("ETag", "W/\"1.3\"") )
+		;
+	}
+	
+	@Test
+	public void deveRetornarNotModifiedSemCalcularOSaldoQuandoAVersaoNaoMudou() throws Exception {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("usuario@email.com").build();
+		
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(usuario));
+		Mockito.when(versaoUsuarioService.obterEtag(1l)).thenReturn("W/\"1.3\"");
+		Mockito.when(versaoUsuarioService.naoModificado("W/\"1.3\"", "W/\"1.3\"")).thenReturn(true);
+		
+		//execução e verificação
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+													.get(API.concat("/1/saldo"))
+													.header("If-None-Match", "W/\"1.3\"")
+													.accept( JSON );
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isNotModified() )
+			.andExpect( MockMvcResultMatchers.header().string("ETag", "W/\"1.3\"") )
+		;
+		Mockito.verify(lancamentoService, Mockito.never()).obterSaldoPorUsuario(1l);
+	}
+	
+	@Test
+	public void deveNegociarOSaldoDetalhadoEmSmilePeloAccept() throws Exception {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("usuario@email.com").build();
+		SaldoPeriodoDTO saldo = new SaldoPeriodoDTO(2019, 1, StatusLancamento.EFETIVADO, BigDecimal.valueOf(100), BigDecimal.valueOf(30));
+		MediaType smile = new MediaType("application", "x-jackson-smile");
+		
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(usuario));
+		Mockito.when(lancamentoService.obterSaldoPorPeriodo(1l, 2019, null, true)).thenReturn(Arrays.asList(saldo));
+		Mockito.when(versaoUsuarioService.obterEtag(1l)).thenReturn("W/\"1.3\"");
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+													.get(API.concat("/1/saldo?ano=2019&agrupar=mes"))
+													.accept( smile );
+		
+		MockHttpServletResponse resposta = mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.content().contentType(smile) )
+			.andReturn().getResponse();
+		
+		//verificação
+		assertThat(resposta.getHeaders("Vary")).contains("Accept");
+		JsonNode saldos = new ObjectMapper(new SmileFactory()).readTree(resposta.getContentAsByteArray());
+		assertThat(saldos.get(0).get("status").asText()).isEqualTo("EFETIVADO");
+		assertThat(saldos.get(0).get("saldo").decimalValue()).isEqualByComparingTo("70");
+	}
+	
+	@Test
+	public void deveObterOResumoMensal() throws Exception {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("usuario@email.com").build();
+		ResumoMensalDTO resumo = new ResumoMensalDTO(2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(30), 2l);
+		
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(usuario));
+		Mockito.when(resumoMensalService.obterResumo(1l, null)).thenReturn(Arrays.asList(resumo));
+		
+		//execução e verificação
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+													.get(API.concat("/1/resumo"))
+													.accept( JSON );
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].tipo").value("DESPESA") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].total").value(30) )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].quantidade").value(2) )
+		;
+	}
+	
+	@Test
+	public void deveRetornarNotFoundAoObterOResumoDeUmUsuarioInexistente() throws Exception {
+		//cenário
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.empty());
+		
+		//execução e verificação
+		mvc
+			.perform( MockMvcRequestBuilders.get(API.concat("/1/resumo")).accept( JSON ) )
+			.andExpect( MockMvcResultMatchers.status().isNotFound() );
+	}
+	
 	@Test
 	public void deveCriarUmNovoUsuario() throws Exception {
 		//cenario - como se fosse um backend
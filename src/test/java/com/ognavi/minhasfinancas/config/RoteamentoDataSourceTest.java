@@ -0,0 +1,160 @@
+package com.ognavi.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.ognavi.minhasfinancas.api.filter.TokenAutenticacaoFilter;
+
+public class RoteamentoDataSourceTest {
+
+	private static final String URL_REPLICA = "jdbc:h2:mem:roteamento_replica;DB_CLOSE_DELAY=-1";
+
+	DriverManagerDataSource primario;
+	DriverManagerDataSource replica;
+	RoteamentoDataSource roteamento;
+	JdbcTemplate jdbcTemplate;
+	TransactionTemplate escrita;
+	TransactionTemplate leitura;
+
+	@Before
+	public void setUp() {
+		//duas instâncias H2 independentes, cada uma identifica a si mesma na tabela origem
+		primario = criarBanco("jdbc:h2:mem:roteamento_primario;DB_CLOSE_DELAY=-1", "primario");
+		replica = criarBanco(URL_REPLICA, "replica");
+
+		roteamento = new RoteamentoDataSource(primario, Arrays.asList(replica), 60_000, 1);
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(roteamento);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		escrita = new TransactionTemplate(transactionManager);
+		leitura = new TransactionTemplate(transactionManager);
+		leitura.setReadOnly(true);
+	}
+
+	@After
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void deveLerDaReplicaEmTransacaoSomenteLeitura() {
+		assertThat(origem(leitura)).isEqualTo("replica");
+	}
+
+	@Test
+	public void deveGravarNoPrimario() {
+		assertThat(origem(escrita)).isEqualTo("primario");
+	}
+
+	@Test
+	public void deveLerDoPrimarioLogoAposUmaEscritaDoMesmoUsuario() {
+		//cenário
+		autenticar(1l);
+		gravar(1l);
+
+		//verificação
+		assertThat(origem(leitura)).isEqualTo("primario");
+
+		autenticar(2l);
+		assertThat(origem(leitura)).isEqualTo("replica");
+	}
+
+	@Test
+	public void deveAbrirAJanelaParaODonoDosDadosGravadosSemUsuarioAutenticado() {
+		//cenário: gravação sem token, como a da ingestão em lote
+		gravar(1l);
+
+		//verificação
+		assertThat(origem(leitura)).isEqualTo("replica");
+
+		autenticar(1l);
+		assertThat(origem(leitura)).isEqualTo("primario");
+
+		autenticar(2l);
+		assertThat(origem(leitura)).isEqualTo("replica");
+	}
+
+	@Test
+	public void naoDeveAbrirAJanelaParaEscritaSemDonoRegistrado() {
+		//cenário: gravação que não altera lançamentos, como a verificação de saldos
+		escrita.execute(status -> jdbcTemplate.update("update origem set nome = nome"));
+
+		//verificação
+		autenticar(1l);
+		assertThat(origem(leitura)).isEqualTo("replica");
+	}
+
+	@Test
+	public void naoDeveConsiderarEscritaDesfeitaParaLeituraPropria() {
+		//cenário
+		autenticar(1l);
+		escrita.execute(status -> {
+			jdbcTemplate.update("update origem set nome = nome");
+			roteamento.registrarEscrita(Arrays.asList(1l));
+			status.setRollbackOnly();
+			return null;
+		});
+
+		//verificação
+		assertThat(origem(leitura)).isEqualTo("replica");
+	}
+
+	@Test
+	public void deveLerDoPrimarioQuandoAReplicaEstiverIndisponivelEVoltarAposAVerificacao() {
+		//cenário
+		replica.setUrl("jdbc:h2:mem:roteamento_inexistente;IFEXISTS=TRUE");
+
+		//execução e verificação
+		assertThat(origem(leitura)).isEqualTo("primario");
+		assertThat(roteamento.situacaoReplicas()).containsEntry("replica-1", false);
+
+		replica.setUrl(URL_REPLICA);
+		roteamento.verificarReplicas();
+
+		assertThat(roteamento.situacaoReplicas()).containsEntry("replica-1", true);
+		assertThat(origem(leitura)).isEqualTo("replica");
+	}
+
+	//como o VersaoUsuarioService faz na transação que grava os lançamentos
+	private void gravar(Long idDono) {
+		escrita.execute(status -> {
+			jdbcTemplate.update("update origem set nome = nome");
+			roteamento.registrarEscrita(Arrays.asList(idDono));
+			return null;
+		});
+	}
+
+	private String origem(TransactionTemplate transacao) {
+		return transacao.execute(status -> jdbcTemplate.queryForObject("select nome from origem", String.class));
+	}
+
+	private void autenticar(Long idUsuario) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(TokenAutenticacaoFilter.ATRIBUTO_USUARIO, idUsuario);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private DriverManagerDataSource criarBanco(String url, String nome) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.execute("create table if not exists origem ( nome varchar(20) )");
+		template.update("delete from origem");
+		template.update("insert into origem values (?)", nome);
+		return dataSource;
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+public class LancamentoReativoRepositoryTest {
+
+	LancamentoReativoRepository repository;
+	JdbcTemplate jdbcTemplate;
+
+	@Before
+	public void setUp() {
+		//banco próprio, migrado pelo Flyway via JDBC e lido pelo R2DBC
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:reativo;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(dataSource).schemas("financas").locations("classpath:db/migration/h2").load().migrate();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update("delete from financas.saldo_usuario");
+		jdbcTemplate.update("delete from financas.lancamento");
+		jdbcTemplate.update("delete from financas.usuario");
+
+		ConnectionFactoryOptions opcoes = ConnectionFactoryOptions.parse("r2dbc:h2:mem:///reativo?options=DB_CLOSE_DELAY=-1").mutate()
+				.option(ConnectionFactoryOptions.USER, "sa")
+				.option(ConnectionFactoryOptions.PASSWORD, "")
+				.build();
+		repository = new LancamentoReativoRepository(ConnectionFactories.get(opcoes), 2);
+
+		jdbcTemplate.update("insert into financas.usuario (id, nome, email, senha) values (1, 'usuario', 'usuario@email.com', 'senha')");
+		jdbcTemplate.update("insert into financas.usuario (id, nome, email, senha) values (2, 'outro', 'outro@email.com', 'senha')");
+		inserirLancamento(1l, "Salário", 2020, 2, "100.00", "RECEITA", "EFETIVADO", 1l);
+		inserirLancamento(2l, "Aluguel", 2020, 1, "40.00", "DESPESA", "EFETIVADO", 1l);
+		inserirLancamento(3l, "Salário 100%", 2019, 12, "90.00", "RECEITA", "PENDENTE", 1l);
+		inserirLancamento(4l, "Salário", 2020, 1, "70.00", "RECEITA", "EFETIVADO", 2l);
+	}
+
+	@Test
+	public void deveBuscarOsLancamentosDoUsuarioOrdenadosPorAnoEMes() {
+		//execução
+		List<LancamentoDTO> resultado = repository.buscar(1l, null, null, null).collectList().block();
+
+		//verificação
+		assertThat(resultado).extracting(LancamentoDTO::getId).containsExactly(3l, 2l, 1l);
+		assertThat(resultado.get(2).getValor()).isEqualByComparingTo("100.00");
+		assertThat(resultado.get(2).getTipo()).isEqualTo("RECEITA");
+		assertThat(resultado.get(2).getUsuario()).isEqualTo(1l);
+	}
+
+	@Test
+	public void deveFiltrarPorDescricaoAnoEMes() {
+		assertThat(repository.buscar(1l, "SALÁRIO", null, null).collectList().block())
+				.extracting(LancamentoDTO::getId).containsExactly(3l, 1l);
+		assertThat(repository.buscar(1l, "100%", null, null).collectList().block())
+				.extracting(LancamentoDTO::getId).containsExactly(3l);
+		assertThat(repository.buscar(1l, null, 2020, 1).collectList().block())
+				.extracting(LancamentoDTO::getId).containsExactly(2l);
+	}
+
+	@Test
+	public void deveObterUmLancamentoPorId() {
+		assertThat(repository.obterPorId(2l).block().getDescricao()).isEqualTo("Aluguel");
+		assertThat(repository.obterPorId(99l).blockOptional()).isEmpty();
+	}
+
+	@Test
+	public void deveCalcularOSaldoPelosLancamentosEfetivadosQuandoNaoHouverSaldoConsolidado() {
+		assertThat(repository.obterSaldo(1l).block()).isEqualByComparingTo("60.00");
+		assertThat(repository.existeUsuario(1l).block()).isTrue();
+		assertThat(repository.existeUsuario(99l).block()).isFalse();
+	}
+
+	@Test
+	public void deveRetornarOSaldoConsolidadoQuandoExistir() {
+		//cenário
+		jdbcTemplate.update("insert into financas.saldo_usuario (id_usuario, receitas, despesas) values (1, 500, 120)");
+
+		//verificação
+		assertThat(repository.obterSaldo(1l).block()).isEqualByComparingTo("380.00");
+	}
+
+	private void inserirLancamento(Long id, String descricao, int ano, int mes, String valor, String tipo, String status, Long idUsuario) {
+		jdbcTemplate.update("insert into financas.lancamento (id, descricao, ano, mes, valor, tipo, status, id_usuario) values (?, ?, ?, ?, ?, ?, ?, ?)",
+				id, descricao, ano, mes, new BigDecimal(valor), tipo, status, idUsuario);
+	}
+
+}
@@ -4,6 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.Test;
@@ -13,10 +16,15 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.SaldoPeriodoDTO;
 import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
 import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
 import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
 
@@ -29,6 +37,9 @@ public class LancamentoRepositoryTest {
 	@Autowired	//injeta o LancamentoRepository
 	LancamentoRepository repository;
 	
+	@Autowired
+	SaldoUsuarioRepository saldoUsuarioRepository;
+	
 	@Autowired
 	TestEntityManager entityManager;
 	
@@ -90,6 +101,180 @@ public class LancamentoRepositoryTest {
 		assertThat(lancamentoEncontrado.isPresent()).isTrue();
 	}
 	
+	@Test
+	public void deveObterOSaldoConsolidadoApenasDosLancamentosEfetivados() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 30);
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 50);
+		
+		// ação/execução
+		Optional<SaldoUsuario> saldo = repository.obterSaldoConsolidadoPorUsuario(usuario.getId());
+		
+		// verificação
+		assertThat(saldo.isPresent()).isTrue();
+		assertThat(saldo.get().getReceitas()).isEqualByComparingTo(BigDecimal.valueOf(100));
+		assertThat(saldo.get().getDespesas()).isEqualByComparingTo(BigDecimal.valueOf(30));
+		assertThat(saldoUsuarioRepository.obterUsuariosComSaldoOuEfetivados()).containsExactly(usuario.getId());
+		assertThat(saldoUsuarioRepository.obterParaAtualizacao(usuario.getId())).isEmpty();
+	}
+	
+	@Test
+	public void deveObterOSaldoAgrupadoPorMesEStatus() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 30);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 50);
+		
+		// ação/execução
+		List<SaldoPeriodoDTO> saldos = repository.obterSaldoPorMesEStatus(usuario.getId(), 2019, null);
+		
+		// verificação
+		assertThat(saldos).hasSize(2);
+		assertThat(saldos.get(0).getMes()).isEqualTo(1);
+		assertThat(saldos.get(0).getStatus()).isEqualTo(StatusLancamento.EFETIVADO.name());
+		assertThat(saldos.get(0).getSaldo()).isEqualByComparingTo(BigDecimal.valueOf(70));
+		assertThat(saldos.get(1).getStatus()).isEqualTo(StatusLancamento.PENDENTE.name());
+		assertThat(saldos.get(1).getSaldo()).isEqualByComparingTo(BigDecimal.valueOf(-50));
+		assertThat(repository.obterSaldoPorMesEStatus(usuario.getId(), 2020, null)).isEmpty();
+	}
+	
+	@Test
+	public void deveBuscarAProximaPaginaAPartirDoCursor() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 10);
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 20);
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 30);
+		
+		// ação/execução
+		List<LancamentoDTO> primeiraPagina = repository.buscarPagina(usuario.getId(), "%qualquer%", 2019, null, 0, 0, 0l, PageRequest.of(0, 2));
+		LancamentoDTO ultimo = primeiraPagina.get(1);
+		List<LancamentoDTO> segundaPagina = repository.buscarPagina(usuario.getId(), "%qualquer%", 2019, null,
+				ultimo.getAno(), ultimo.getMes(), ultimo.getId(), PageRequest.of(0, 2));
+		
+		// verificação
+		assertThat(primeiraPagina).hasSize(2);
+		assertThat(segundaPagina).hasSize(1);
+		assertThat(segundaPagina.get(0).getId()).isGreaterThan(ultimo.getId());
+		assertThat(segundaPagina.get(0).getUsuario()).isEqualTo(usuario.getId());
+		assertThat(segundaPagina.get(0).getStatus()).isEqualTo(StatusLancamento.PENDENTE.name());
+		assertThat(repository.buscarPagina(usuario.getId(), "%outro%", null, null, 0, 0, 0l, PageRequest.of(0, 2))).isEmpty();
+	}
+	
+	@Test
+	public void deveAtualizarOStatusDosLancamentosInformadosComUmUnicoUpdate() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento receita = persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100);
+		Lancamento despesa = persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.CANCELADO, 30);
+		Lancamento efetivado = persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 50);
+		List<Long> ids = Arrays.asList(receita.getId(), despesa.getId(), efetivado.getId());
+		
+		// ação/execução
+		List<SaldoUsuario> totais = repository.obterTotaisPorIdsEStatus(ids, null, 
+				EnumSet.of(StatusLancamento.PENDENTE, StatusLancamento.CANCELADO));
+		int atualizados = repository.atualizarStatusPorIds(ids, null, StatusLancamento.EFETIVADO);
+		
+		// verificação
+		assertThat(totais).hasSize(1);
+		assertThat(totais.get(0).getReceitas()).isEqualByComparingTo(BigDecimal.valueOf(100));
+		assertThat(totais.get(0).getDespesas()).isEqualByComparingTo(BigDecimal.valueOf(30));
+		assertThat(atualizados).isEqualTo(2);
+		assertThat(entityManager.find(Lancamento.class, despesa.getId()).getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		assertThat(repository.atualizarStatusPorIds(ids, usuario.getId() + 1, StatusLancamento.CANCELADO)).isZero();
+	}
+	
+	@Test
+	public void deveAtualizarOStatusDosLancamentosDoPeriodo() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 30);
+		
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.CANCELADO, 20);
+		
+		// ação/execução
+		List<Long> bloqueados = repository.bloquearPorPeriodoEStatusDiferente(usuario.getId(), 2019, 1, StatusLancamento.CANCELADO);
+		List<SaldoUsuario> totais = repository.obterTotaisPorIdsEStatus(bloqueados, null, EnumSet.of(StatusLancamento.EFETIVADO));
+		int atualizados = repository.atualizarStatusPorIds(bloqueados, null, StatusLancamento.CANCELADO);
+		
+		// verificação
+		assertThat(bloqueados).hasSize(2);
+		assertThat(totais).hasSize(1);
+		assertThat(totais.get(0).getReceitas()).isEqualByComparingTo(BigDecimal.valueOf(100));
+		assertThat(totais.get(0).getDespesas()).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(atualizados).isEqualTo(2);
+		assertThat(repository.bloquearPorPeriodoEStatusDiferente(usuario.getId(), 2020, null, StatusLancamento.PENDENTE)).isEmpty();
+	}
+	
+	@Test
+	public void deveBuscarOsLancamentosProjetadosNoDTO() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 30);
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 10);
+		
+		// ação/execução
+		List<LancamentoDTO> lancamentos = repository.buscarResumo(usuario.getId(), "%qualquer%", 2019, 1);
+		
+		// verificação
+		assertThat(lancamentos).hasSize(2);
+		assertThat(lancamentos.get(0).getTipo()).isEqualTo(TipoLancamento.DESPESA.name());
+		assertThat(lancamentos.get(0).getValor()).isEqualByComparingTo(BigDecimal.valueOf(30));
+		assertThat(lancamentos.get(0).getUsuario()).isEqualTo(usuario.getId());
+		assertThat(repository.buscarResumo(usuario.getId(), null, 2020, null)).isEmpty();
+	}
+	
+	@Test
+	public void deveAtualizarApenasOsCamposInformados() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento lancamento = persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100);
+		Lancamento alteracoes = Lancamento.builder().id(lancamento.getId()).descricao("nova descricao").mes(2).build();
+		
+		// ação/execução
+		int atualizados = repository.atualizarCampos(alteracoes, usuario.getId());
+		
+		// verificação
+		Lancamento lancamentoAtualizado = entityManager.find(Lancamento.class, lancamento.getId());
+		assertThat(atualizados).isEqualTo(1);
+		assertThat(lancamentoAtualizado.getDescricao()).isEqualTo("nova descricao");
+		assertThat(lancamentoAtualizado.getMes()).isEqualTo(2);
+		assertThat(lancamentoAtualizado.getAno()).isEqualTo(2019);
+		assertThat(lancamentoAtualizado.getValor()).isEqualByComparingTo(BigDecimal.valueOf(100));
+		assertThat(repository.atualizarCampos(alteracoes, usuario.getId() + 1)).isZero();
+	}
+	
+	@Test
+	public void deveDeletarApenasOLancamentoDoUsuarioInformado() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento lancamento = persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 40);
+		
+		// ação/execução
+		int deOutroUsuario = repository.deletarPorId(lancamento.getId(), usuario.getId() + 1);
+		Optional<LancamentoDTO> anterior = repository.obterResumoPorId(lancamento.getId(), usuario.getId());
+		int excluidos = repository.deletarPorId(lancamento.getId(), usuario.getId());
+		
+		// verificação
+		assertThat(deOutroUsuario).isZero();
+		assertThat(anterior).hasValueSatisfying( dto -> assertThat(dto.getStatus()).isEqualTo("EFETIVADO") );
+		assertThat(excluidos).isEqualTo(1);
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId())).isNull();
+		assertThat(repository.deletarPorId(lancamento.getId(), usuario.getId())).isZero();
+	}
+	
+	private Lancamento persistirLancamento(Usuario usuario, TipoLancamento tipo, StatusLancamento status, int valor) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return entityManager.persist(lancamento);
+	}
 	
 	private Lancamento criarEPersistirUmLancamento() {
 		Lancamento lancamento = criarLancamento();
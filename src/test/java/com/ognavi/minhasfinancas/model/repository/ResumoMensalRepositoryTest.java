@@ -0,0 +1,111 @@
+package com.ognavi.minhasfinancas.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.ognavi.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensalId;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+public class ResumoMensalRepositoryTest {
+
+	@Autowired
+	ResumoMensalRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Test
+	public void deveReconstruirOResumoAPartirDosLancamentos() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, 1, StatusLancamento.PENDENTE, 10);
+		persistirLancamento(usuario, 1, StatusLancamento.PENDENTE, 15);
+		persistirLancamento(usuario, 2, StatusLancamento.EFETIVADO, 40);
+
+		Usuario outro = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		entityManager.persist(new ResumoMensal(outro.getId(), 2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.TEN, 1l));
+
+		// ação/execução
+		List<Long> usuarios = repository.obterUsuariosComLancamentosOuResumo();
+		repository.excluirPorUsuario(usuario.getId());
+		int chaves = repository.inserirAPartirDosLancamentos(usuario.getId());
+
+		// verificação
+		List<ResumoMensalDTO> resumo = repository.buscarPorPeriodo(usuario.getId(), 2019, 1, 2019, 12);
+		assertThat(usuarios).contains(usuario.getId(), outro.getId());
+		assertThat(chaves).isEqualTo(2);
+		assertThat(repository.buscarPorPeriodo(outro.getId(), 2019, 1, 2019, 12)).hasSize(1);
+		assertThat(resumo).extracting(ResumoMensalDTO::getMes).containsExactly(1, 2);
+		assertThat(resumo.get(0).getTotal()).isEqualByComparingTo(BigDecimal.valueOf(25));
+		assertThat(resumo.get(0).getQuantidade()).isEqualTo(2l);
+		assertThat(resumo.get(1).getStatus()).isEqualTo("EFETIVADO");
+	}
+
+	@Test
+	public void deveIncrementarOTotalEAQuantidadeDaChave() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		ResumoMensal resumo = new ResumoMensal(usuario.getId(), 2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.TEN, 1l);
+		entityManager.persistAndFlush(resumo);
+		entityManager.clear();
+
+		// ação/execução
+		int atualizados = repository.incrementar(usuario.getId(), 2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(-10), -1l);
+
+		// verificação
+		ResumoMensal atualizado = entityManager.find(ResumoMensal.class, resumo.getChave());
+		assertThat(atualizados).isEqualTo(1);
+		assertThat(atualizado.getQuantidade()).isZero();
+		assertThat(repository.buscarPorPeriodo(usuario.getId(), 2019, 1, 2019, 1)).isEmpty();
+		assertThat(repository.findById(new ResumoMensalId(usuario.getId(), 2019, 2, TipoLancamento.DESPESA, StatusLancamento.PENDENTE))).isEmpty();
+	}
+
+	@Test
+	public void deveCriarAChaveOuSomarAVariacaoQuandoJaExistir() {
+		// cenário
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		ResumoMensal inicial = new ResumoMensal(usuario.getId(), 2019, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(50), 2l);
+		ResumoMensal variacao = new ResumoMensal(usuario.getId(), 2019, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, BigDecimal.TEN, 1l);
+
+		// ação/execução
+		repository.inserirOuIncrementar(inicial, variacao);
+		repository.inserirOuIncrementar(inicial, variacao);
+
+		// verificação
+		entityManager.clear();
+		ResumoMensal resumo = entityManager.find(ResumoMensal.class, inicial.getChave());
+		assertThat(resumo.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(60));
+		assertThat(resumo.getQuantidade()).isEqualTo(3l);
+	}
+
+	private void persistirLancamento(Usuario usuario, int mes, StatusLancamento status, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setMes(mes);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		entityManager.persist(lancamento);
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.FormatoExportacao;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.ognavi.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.ognavi.minhasfinancas.service.impl.ExportacaoServiceImpl;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import(ExportacaoServiceImpl.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class ExportacaoServiceTest {
+
+	@Autowired
+	ExportacaoService service;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Test
+	public void deveExportarOsLancamentosEmCsv() throws Exception {
+		//cenário
+		Usuario usuario = criarEPersistirLancamentos();
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		
+		//execução
+		service.exportarLancamentos(usuario.getId(), FormatoExportacao.CSV, saida);
+		
+		//verificação
+		String[] linhas = new String(saida.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertThat(linhas).hasSize(3);
+		assertThat(linhas[0]).isEqualTo("id,descricao,mes,ano,valor,usuario,tipo,status");
+		assertThat(linhas[2]).contains("\"aluguel, condominio\"").endsWith(",DESPESA,PENDENTE");
+	}
+	
+	@Test
+	public void deveExportarOsLancamentosEmNdjson() throws Exception {
+		//cenário
+		Usuario usuario = criarEPersistirLancamentos();
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		
+		//execução
+		service.exportarLancamentos(usuario.getId(), FormatoExportacao.NDJSON, saida);
+		
+		//verificação
+		String[] linhas = new String(saida.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertThat(linhas).hasSize(2);
+		assertThat(linhas[0]).startsWith("{").contains("\"usuario\":" + usuario.getId()).contains("\"tipo\":\"RECEITA\"");
+	}
+	
+	@Test
+	public void deveExportarOsLancamentosComoUmaSequenciaSmile() throws Exception {
+		deveExportarOsLancamentosComoUmaSequenciaBinaria(FormatoExportacao.SMILE, new SmileFactory());
+	}
+	
+	@Test
+	public void deveExportarOsLancamentosComoUmaSequenciaCbor() throws Exception {
+		deveExportarOsLancamentosComoUmaSequenciaBinaria(FormatoExportacao.CBOR, new CBORFactory());
+	}
+	
+	private void deveExportarOsLancamentosComoUmaSequenciaBinaria(FormatoExportacao formato, JsonFactory factory) throws Exception {
+		//cenário
+		Usuario usuario = criarEPersistirLancamentos();
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		
+		//execução
+		service.exportarLancamentos(usuario.getId(), formato, saida);
+		
+		//verificação
+		List<LancamentoDTO> lancamentos = new ObjectMapper(factory).readerFor(LancamentoDTO.class)
+				.<LancamentoDTO>readValues(saida.toByteArray()).readAll();
+		assertThat(lancamentos).hasSize(2);
+		assertThat(lancamentos).extracting(LancamentoDTO::getUsuario).containsOnly(usuario.getId());
+		assertThat(lancamentos.get(1).getDescricao()).isEqualTo("aluguel, condominio");
+		assertThat(lancamentos.get(1).getValor()).isEqualByComparingTo("1500");
+		assertThat(lancamentos.get(1).getTipo()).isEqualTo("DESPESA");
+	}
+	
+	private Usuario criarEPersistirLancamentos() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		
+		Lancamento receita = LancamentoRepositoryTest.criarLancamento();
+		receita.setUsuario(usuario);
+		entityManager.persist(receita);
+		
+		Lancamento despesa = LancamentoRepositoryTest.criarLancamento();
+		despesa.setUsuario(usuario);
+		despesa.setMes(2);
+		despesa.setDescricao("aluguel, condominio");
+		despesa.setValor(BigDecimal.valueOf(1500));
+		despesa.setTipo(TipoLancamento.DESPESA);
+		entityManager.persist(despesa);
+		
+		entityManager.flush();
+		entityManager.clear();
+		return usuario;
+	}
+	
+}
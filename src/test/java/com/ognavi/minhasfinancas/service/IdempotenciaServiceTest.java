@@ -0,0 +1,121 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.ognavi.minhasfinancas.exception.ChaveIdempotenciaException;
+import com.ognavi.minhasfinancas.service.impl.IdempotenciaServiceImpl;
+
+public class IdempotenciaServiceTest {
+
+	IdempotenciaService service = new IdempotenciaServiceImpl(100, 60, 5000);
+	
+	AtomicInteger execucoes = new AtomicInteger();
+	
+	@Test
+	public void deveDevolverOResultadoDaPrimeiraExecucaoNasRepeticoes() {
+		//execução
+		Integer primeira = service.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> true);
+		Integer repeticao = service.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> true);
+		Integer outraChave = service.executar("outra", "requisicao", execucoes::incrementAndGet, resultado -> true);
+		
+		//verificação
+		assertThat(primeira).isEqualTo(1);
+		assertThat(repeticao).isEqualTo(1);
+		assertThat(outraChave).isEqualTo(2);
+	}
+	
+	@Test
+	public void deveRecusarAChaveReutilizadaEmOutraRequisicao() {
+		//cenário
+		service.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> true);
+		
+		//execução
+		Throwable erro = catchThrowable( () -> service.executar("chave", "outra requisicao", execucoes::incrementAndGet, resultado -> true) );
+		
+		//verificação
+		assertThat(erro).isInstanceOf(ChaveIdempotenciaException.class);
+		assertThat(((ChaveIdempotenciaException) erro).isEmAndamento()).isFalse();
+		assertThat(execucoes).hasValue(1);
+	}
+	
+	@Test
+	public void deveExecutarNovamenteQuandoOResultadoNaoForReaproveitavelOuFalhar() {
+		//execução
+		service.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> false);
+		Integer segunda = service.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> true);
+		Throwable falha = catchThrowable( () -> service.executar("falha", "requisicao", () -> { throw new IllegalStateException(); }, resultado -> true) );
+		Integer aposFalha = service.executar("falha", "requisicao", execucoes::incrementAndGet, resultado -> true);
+		
+		//verificação
+		assertThat(segunda).isEqualTo(2);
+		assertThat(falha).isInstanceOf(IllegalStateException.class);
+		assertThat(aposFalha).isEqualTo(3);
+	}
+	
+	@Test
+	public void deveAguardarAExecucaoConcorrenteComAMesmaChave() throws Exception {
+		//cenário
+		CountDownLatch iniciada = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> primeira = CompletableFuture.supplyAsync( () -> service.executar("chave", "requisicao", () -> {
+			iniciada.countDown();
+			aguardar(liberar);
+			return execucoes.incrementAndGet();
+		}, resultado -> true) );
+		aguardar(iniciada);
+		
+		//execução
+		CompletableFuture<Integer> repeticao = CompletableFuture.supplyAsync(
+				() -> service.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> true) );
+		Thread.sleep(100);
+		boolean repeticaoTerminouAntes = repeticao.isDone();
+		liberar.countDown();
+		
+		//verificação
+		assertThat(repeticaoTerminouAntes).isFalse();
+		assertThat(repeticao.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(primeira.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(execucoes).hasValue(1);
+	}
+	
+	@Test
+	public void deveRecusarARepeticaoQuandoAPrimeiraExecucaoExcederAEspera() throws Exception {
+		//cenário
+		IdempotenciaService semEspera = new IdempotenciaServiceImpl(100, 60, 50);
+		CountDownLatch iniciada = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> primeira = CompletableFuture.supplyAsync( () -> semEspera.executar("chave", "requisicao", () -> {
+			iniciada.countDown();
+			aguardar(liberar);
+			return 1;
+		}, resultado -> true) );
+		aguardar(iniciada);
+		
+		//execução
+		Throwable erro = catchThrowable( () -> semEspera.executar("chave", "requisicao", execucoes::incrementAndGet, resultado -> true) );
+		liberar.countDown();
+		
+		//verificação
+		assertThat(erro).isInstanceOf(ChaveIdempotenciaException.class);
+		assertThat(((ChaveIdempotenciaException) erro).isEmAndamento()).isTrue();
+		assertThat(primeira.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(execucoes).hasValue(0);
+	}
+	
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+}
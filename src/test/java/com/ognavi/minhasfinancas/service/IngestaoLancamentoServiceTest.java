@@ -0,0 +1,184 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.ognavi.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.ognavi.minhasfinancas.exception.FilaCheiaException;
+import com.ognavi.minhasfinancas.exception.IngestaoEncerradaException;
+import com.ognavi.minhasfinancas.exception.RegraNegocioException;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.SituacaoIngestao;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.ognavi.minhasfinancas.service.impl.IngestaoLancamentoServiceImpl;
+
+public class IngestaoLancamentoServiceTest {
+
+	LancamentoService lancamentoService;
+	IngestaoLancamentoServiceImpl service;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		//sem iniciar(): a thread de gravação não sobe e os lotes são gravados pelo teste com gravarPendentes()
+		lancamentoService = mock(LancamentoService.class);
+		service = new IngestaoLancamentoServiceImpl(lancamentoService, mock(ObjectProvider.class), true, 2, 10, 200, 100, 60);
+	}
+
+	@Test
+	public void deveEnfileirarEGravarOsLancamentosEmUmUnicoLote() {
+		//cenário
+		Lancamento primeiro = criarLancamento();
+		Lancamento segundo = criarLancamento();
+		when(lancamentoService.salvarLote(anyList())).thenAnswer( invocacao -> {
+			List<Lancamento> lote = invocacao.getArgument(0);
+			for (int i = 0; i < lote.size(); i++) {
+				lote.get(i).setId(10l + i);
+			}
+			return Collections.emptyMap();
+		});
+
+		//execução
+		SituacaoIngestaoDTO situacao = service.enfileirar(primeiro);
+		service.enfileirar(segundo);
+
+		//verificação
+		assertThat(situacao.getSituacao()).isEqualTo(SituacaoIngestao.PENDENTE);
+		assertThat(service.obterSituacao(situacao.getId())).hasValueSatisfying( s -> assertThat(s.getUsuario()).isEqualTo(1l) );
+
+		assertThat(service.gravarPendentes()).isEqualTo(2);
+		verify(lancamentoService).salvarLote(anyList());
+		SituacaoIngestaoDTO gravado = service.obterSituacao(situacao.getId()).get();
+		assertThat(gravado.getSituacao()).isEqualTo(SituacaoIngestao.GRAVADO);
+		assertThat(gravado.getLancamento()).isEqualTo(10l);
+	}
+
+	@Test
+	public void deveRecusarOLancamentoQuandoAFilaEstiverCheia() {
+		//cenário
+		service.enfileirar(criarLancamento());
+		service.enfileirar(criarLancamento());
+
+		//execução
+		Throwable erro = catchThrowable( () -> service.enfileirar(criarLancamento()) );
+
+		//verificação
+		assertThat(erro).isInstanceOf(FilaCheiaException.class);
+		assertThat(((FilaCheiaException) erro).getSegundosParaNovaTentativa()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveRecusarOLancamentoDepoisDoEncerramento() throws Exception {
+		//cenário
+		service.encerrar();
+
+		//execução
+		Throwable erro = catchThrowable( () -> service.enfileirar(criarLancamento()) );
+
+		//verificação
+		assertThat(erro).isInstanceOf(IngestaoEncerradaException.class);
+		assertThat(service.gravarPendentes()).isZero();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void deveGravarAFilaInteiraAntesDeEncerrar() throws Exception {
+		//cenário
+		service = new IngestaoLancamentoServiceImpl(lancamentoService, mock(ObjectProvider.class), true, 10, 2, 200, 100, 60);
+		service.iniciar();
+		List<SituacaoIngestaoDTO> situacoes = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			situacoes.add(service.enfileirar(criarLancamento()));
+		}
+
+		//execução
+		service.encerrar();
+
+		//verificação
+		for (SituacaoIngestaoDTO situacao : situacoes) {
+			assertThat(service.obterSituacao(situacao.getId()).get().getSituacao()).isEqualTo(SituacaoIngestao.GRAVADO);
+		}
+	}
+
+	@Test
+	public void naoDeveEnfileirarUmLancamentoInvalido() {
+		//cenário
+		Lancamento lancamento = criarLancamento();
+		doThrow(RegraNegocioException.class).when(lancamentoService).validar(lancamento);
+
+		//execução
+		Throwable erro = catchThrowable( () -> service.enfileirar(lancamento) );
+
+		//verificação
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		assertThat(service.gravarPendentes()).isZero();
+		verify(lancamentoService, never()).salvarLote(anyList());
+	}
+
+	@Test
+	public void deveRegistrarOErroDoLancamentoRecusadoNoLote() {
+		//cenário
+		when(lancamentoService.salvarLote(anyList())).thenReturn(Collections.singletonMap(1, "Informe um Valor válido."));
+		SituacaoIngestaoDTO aceito = service.enfileirar(criarLancamento());
+		SituacaoIngestaoDTO recusado = service.enfileirar(criarLancamento());
+
+		//execução
+		service.gravarPendentes();
+
+		//verificação
+		assertThat(service.obterSituacao(aceito.getId()).get().getSituacao()).isEqualTo(SituacaoIngestao.GRAVADO);
+		assertThat(service.obterSituacao(recusado.getId()).get().getSituacao()).isEqualTo(SituacaoIngestao.ERRO);
+		assertThat(service.obterSituacao(recusado.getId()).get().getErro()).isEqualTo("Informe um Valor válido.");
+	}
+
+	@Test
+	public void deveGravarIndividualmenteQuandoOLoteFalhar() {
+		//cenário
+		Lancamento valido = criarLancamento();
+		Lancamento invalido = criarLancamento();
+		when(lancamentoService.salvarLote(anyList())).thenThrow(new IllegalStateException("falha no banco"));
+		when(lancamentoService.salvar(any(Lancamento.class))).thenAnswer( invocacao -> {
+			Lancamento lancamento = invocacao.getArgument(0);
+			if(lancamento == invalido) {
+				throw new IllegalStateException("violação de restrição");
+			}
+			lancamento.setId(7l);
+			return lancamento;
+		});
+		SituacaoIngestaoDTO aceito = service.enfileirar(valido);
+		SituacaoIngestaoDTO recusado = service.enfileirar(invalido);
+
+		//execução
+		service.gravarPendentes();
+
+		//verificação
+		verify(lancamentoService, times(2)).salvar(any(Lancamento.class));
+		assertThat(service.obterSituacao(aceito.getId()).get().getLancamento()).isEqualTo(7l);
+		assertThat(service.obterSituacao(recusado.getId()).get().getSituacao()).isEqualTo(SituacaoIngestao.ERRO);
+		assertThat(service.obterSituacao(recusado.getId()).get().getErro()).isEqualTo("violação de restrição");
+	}
+
+	private Lancamento criarLancamento() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		return lancamento;
+	}
+
+}
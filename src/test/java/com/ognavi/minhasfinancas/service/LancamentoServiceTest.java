@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -14,7 +16,9 @@ import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.Test;
@@ -24,9 +28,13 @@ import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.data.domain.Example;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.ognavi.minhasfinancas.api.dto.LancamentoDTO;
+import com.ognavi.minhasfinancas.api.dto.PaginaDTO;
 import com.ognavi.minhasfinancas.exception.RegraNegocioException;
 import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
 import com.ognavi.minhasfinancas.model.entity.Usuario;
 import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
 import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
@@ -42,6 +50,12 @@ public class LancamentoServiceTest {
 	LancamentoServiceImpl service;
 	@MockBean
 	LancamentoRepository repository;
+	@MockBean
+	SaldoUsuarioService saldoUsuarioService;
+	@MockBean
+	ResumoMensalService resumoMensalService;
+	@MockBean
+	VersaoUsuarioService versaoUsuarioService;
 
 	@Test
 	public void deveSalvarUmLancamento() {
@@ -73,6 +87,24 @@ public class LancamentoServiceTest {
 		verify(repository, never()).save(lancamentoASalvar);
 	}
 
+	@Test
+	public void deveSalvarApenasOsLancamentosValidosDoLote() {
+		//cenário
+		Lancamento valido = LancamentoRepositoryTest.criarLancamento();
+		valido.setUsuario(Usuario.builder().id(1l).build());
+		Lancamento invalido = LancamentoRepositoryTest.criarLancamento();
+		invalido.setUsuario(Usuario.builder().id(1l).build());
+		invalido.setMes(13);
+
+		//execução
+		Map<Integer, String> erros = service.salvarLote(Arrays.asList(invalido, valido));
+
+		//verificação
+		assertThat(erros).containsOnlyKeys(0).containsEntry(0, "Informe um Mês válido!");
+		assertThat(valido.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		verify(repository).saveAll(Arrays.asList(valido));
+	}
+
 	@Test
 	public void deveAtualizarUmLancamento() {
 		//cenário
@@ -125,23 +157,133 @@ public class LancamentoServiceTest {
 		verify(repository, never()).delete(lancamento);		
 	}
 
+	@Test
+	public void deveAtualizarComUmUpdateCondicionalSemCarregarOLancamento() {
+		//cenário
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		lancamento.setStatus(null);
+		lancamento.setValor(BigDecimal.valueOf(30));
+		doNothing().when(service).validar(lancamento);
+
+		when(repository.obterResumoPorId(1l, 1l)).thenReturn(Optional.of(
+				new LancamentoDTO(1l, "anterior", 1, 2019, BigDecimal.TEN, 1l, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO)));
+		when(repository.atualizarCampos(lancamento, 1l)).thenReturn(1);
+
+		//execução
+		int atualizados = service.atualizar(lancamento, 1l);
+
+		//verificação
+		assertThat(atualizados).isEqualTo(1);
+		assertThat(lancamento.getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		verify(repository, never()).findById(any());
+		verify(repository, never()).save(any());
+		verify(saldoUsuarioService).registrarAlteracao(
+				argThat( l -> l.getValor().equals(BigDecimal.TEN) && l.getStatus() == StatusLancamento.EFETIVADO ),
+				eq(lancamento));
+	}
+
+	@Test
+	public void naoDeveAtualizarUmLancamentoDeOutroUsuario() {
+		//cenário
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		doNothing().when(service).validar(lancamento);
+		when(repository.obterResumoPorId(1l, 2l)).thenReturn(Optional.empty());
+
+		//execução
+		int atualizados = service.atualizar(lancamento, 2l);
+
+		//verificação
+		assertThat(atualizados).isZero();
+		verify(repository, never()).atualizarCampos(any(), any());
+	}
+
+	@Test
+	public void deveDeletarPorIdERegistrarOsValoresAnterioresNoSaldo() {
+		//cenário
+		when(repository.obterResumoPorId(1l, 1l)).thenReturn(Optional.of(
+				new LancamentoDTO(1l, "anterior", 1, 2019, BigDecimal.TEN, 1l, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO)));
+		when(repository.deletarPorId(1l, 1l)).thenReturn(1);
+
+		//execução
+		int excluidos = service.deletar(1l, 1l);
+
+		//verificação
+		assertThat(excluidos).isEqualTo(1);
+		verify(repository, never()).delete(any());
+		verify(saldoUsuarioService).registrarAlteracao(
+				argThat( l -> l.getTipo() == TipoLancamento.DESPESA && l.getValor().equals(BigDecimal.TEN) ), eq(null));
+		verify(resumoMensalService).registrarAlteracao(any(Lancamento.class), eq(null));
+	}
+
+	@Test
+	public void naoDeveRegistrarAlteracoesAoDeletarUmLancamentoInexistente() {
+		//cenário
+		when(repository.obterResumoPorId(1l, null)).thenReturn(Optional.empty());
+
+		//execução
+		int excluidos = service.deletar(1l, null);
+
+		//verificação
+		assertThat(excluidos).isZero();
+		verify(repository, never()).deletarPorId(any(), any());
+		verify(saldoUsuarioService, never()).registrarAlteracao(any(), any());
+	}
+
 	@Test
 	public void deveFiltrarLancamentos() {
 		//cenário
 		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
 		lancamento.setId(1l);
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		lancamento.setDescricao("Conta_100%");
 
-		List<Lancamento> lista = Arrays.asList(lancamento);
-		when(repository.findAll(any(Example.class))).thenReturn(lista);
+		LancamentoDTO dto = LancamentoDTO.builder().id(1l).usuario(1l).build();
+		when(repository.buscarResumo(1l, "%conta\\_100\\%%", 2019, 1)).thenReturn(Arrays.asList(dto));
 
 		//execução
-		List<Lancamento> resultado = service.buscar(lancamento);
+		List<LancamentoDTO> resultado = service.buscar(lancamento);
 
 		//verificações
 		assertThat(resultado)
 			.isNotEmpty()
 			.hasSize(1)
-			.contains(lancamento);
+			.contains(dto);
+		verify(repository, never()).findAll(any(Example.class));
+	}
+
+	@Test
+	public void deveRetornarOCursorDaProximaPaginaQuandoHouverMaisItens() {
+		//cenário
+		Lancamento filtro = LancamentoRepositoryTest.criarLancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+
+		LancamentoDTO primeiro = LancamentoDTO.builder().id(1l).ano(2019).mes(1).build();
+		LancamentoDTO segundo = LancamentoDTO.builder().id(2l).ano(2019).mes(1).build();
+		when(repository.buscarPagina(eq(1l), any(), any(), any(), eq(0), eq(0), eq(0l), any()))
+			.thenReturn(Arrays.asList(primeiro, segundo));
+
+		//execução
+		PaginaDTO<LancamentoDTO> pagina = service.buscar(filtro, null, 1);
+		service.buscar(filtro, pagina.getProximaPagina(), 1);
+
+		//verificações
+		assertThat(pagina.getItens()).containsExactly(primeiro);
+		assertThat(pagina.getProximaPagina()).isNotNull();
+		verify(repository).buscarPagina(eq(1l), any(), any(), any(), eq(2019), eq(1), eq(1l), any());
+	}
+
+	@Test
+	public void deveLancarErroAoBuscarComCursorInvalido() {
+		//cenário
+		Lancamento filtro = LancamentoRepositoryTest.criarLancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+
+		//execução e verificação
+		Throwable erro = catchThrowable( () -> service.buscar(filtro, "invalido", 10) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Cursor de paginação inválido!");
 	}
 
 	@Test
@@ -162,6 +304,148 @@ public class LancamentoServiceTest {
 		verify(service).atualizar(lancamento);
 	}
 
+	@Test
+	public void deveAtualizarOStatusEmLoteRetirandoDoSaldoOsLancamentosEfetivados() {
+		//cenário
+		List<Long> ids = Arrays.asList(1l, 2l, 3l);
+		Lancamento filtro = new Lancamento();
+		when(repository.bloquearPorIdsEStatusDiferente(ids, null, StatusLancamento.CANCELADO)).thenReturn(ids);
+		when(repository.obterTotaisPorIdsEStatus(ids, null, EnumSet.of(StatusLancamento.EFETIVADO)))
+			.thenReturn(Arrays.asList(new SaldoUsuario(1l, BigDecimal.valueOf(100), BigDecimal.valueOf(30))));
+		when(repository.atualizarStatusPorIds(ids, null, StatusLancamento.CANCELADO)).thenReturn(3);
+
+		//execução
+		int atualizados = service.atualizarStatusEmLote(ids, filtro, StatusLancamento.CANCELADO);
+
+		//verificações
+		assertThat(atualizados).isEqualTo(3);
+		verify(saldoUsuarioService).registrarVariacoes(argThat( variacoes -> {
+			SaldoUsuario variacao = variacoes.iterator().next();
+			return variacao.getReceitas().compareTo(BigDecimal.valueOf(-100)) == 0
+					&& variacao.getDespesas().compareTo(BigDecimal.valueOf(-30)) == 0;
+		}));
+		verify(repository, never()).save(any(Lancamento.class));
+	}
+
+	@Test
+	public void deveAtualizarOStatusEmLoteDosLancamentosDoPeriodo() {
+		//cenário
+		Lancamento filtro = Lancamento.builder().usuario(Usuario.builder().id(1l).build()).ano(2019).mes(1).build();
+		EnumSet<StatusLancamento> naoEfetivados = EnumSet.of(StatusLancamento.PENDENTE, StatusLancamento.CANCELADO);
+		List<Long> bloqueados = Arrays.asList(4l, 5l, 6l);
+		when(repository.bloquearPorPeriodoEStatusDiferente(1l, 2019, 1, StatusLancamento.EFETIVADO)).thenReturn(bloqueados);
+		when(repository.atualizarStatusPorIds(bloqueados, null, StatusLancamento.EFETIVADO)).thenReturn(3);
+
+		//execução
+		int atualizados = service.atualizarStatusEmLote(null, filtro, StatusLancamento.EFETIVADO);
+
+		//verificações
+		assertThat(atualizados).isEqualTo(3);
+		verify(repository).obterTotaisPorIdsEStatus(bloqueados, null, naoEfetivados);
+	}
+
+	@Test
+	public void deveSomarAsPartesDoPeriodoEmUmaUnicaVariacaoPorUsuario() {
+		//cenário
+		Lancamento filtro = Lancamento.builder().usuario(Usuario.builder().id(1l).build()).ano(2019).build();
+		EnumSet<StatusLancamento> efetivados = EnumSet.of(StatusLancamento.EFETIVADO);
+		when(repository.bloquearPorPeriodoEStatusDiferente(1l, 2019, null, StatusLancamento.CANCELADO))
+			.thenReturn(Arrays.asList(1l, 2l, 3l));
+		when(repository.obterTotaisPorIdsEStatus(Arrays.asList(1l, 2l), null, efetivados))
+			.thenReturn(Arrays.asList(new SaldoUsuario(1l, BigDecimal.valueOf(100), BigDecimal.ZERO)));
+		when(repository.obterTotaisPorIdsEStatus(Arrays.asList(3l), null, efetivados))
+			.thenReturn(Arrays.asList(new SaldoUsuario(1l, BigDecimal.valueOf(50), BigDecimal.valueOf(20))));
+		when(repository.atualizarStatusPorIds(any(), eq(null), eq(StatusLancamento.CANCELADO))).thenReturn(2, 1);
+		ReflectionTestUtils.setField(service, "tamanhoLoteMaximo", 2);
+
+		//execução
+		int atualizados;
+		try {
+			atualizados = service.atualizarStatusEmLote(null, filtro, StatusLancamento.CANCELADO);
+		} finally {
+			ReflectionTestUtils.setField(service, "tamanhoLoteMaximo", 5000);
+		}
+
+		//verificações
+		assertThat(atualizados).isEqualTo(3);
+		verify(saldoUsuarioService).registrarVariacoes(argThat( variacoes -> {
+			SaldoUsuario variacao = variacoes.iterator().next();
+			return variacoes.size() == 1
+					&& variacao.getReceitas().compareTo(BigDecimal.valueOf(-150)) == 0
+					&& variacao.getDespesas().compareTo(BigDecimal.valueOf(-20)) == 0;
+		}));
+	}
+
+	@Test
+	public void deveLancarErroAoAtualizarStatusEmLoteSemIdsEUsuario() {
+		//execução e verificação
+		Throwable erro = catchThrowable( () -> service.atualizarStatusEmLote(null, new Lancamento(), StatusLancamento.EFETIVADO) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe os lançamentos ou um Usuário!");
+		verify(repository, never()).bloquearPorPeriodoEStatusDiferente(any(), any(), any(), any());
+	}
+
+	@Test
+	public void deveAtualizarParcialmenteSemLerOLancamentoQuandoOSaldoNaoMuda() {
+		//cenário
+		Lancamento alteracoes = Lancamento.builder().id(1l).descricao("nova descricao").build();
+		when(repository.atualizarCampos(alteracoes, 1l)).thenReturn(1);
+
+		//execução
+		int atualizados = service.atualizarParcialmente(alteracoes, 1l);
+
+		//verificações
+		assertThat(atualizados).isEqualTo(1);
+		verify(repository, never()).findById(any());
+		verify(saldoUsuarioService, never()).registrarAlteracao(any(), any());
+	}
+
+	@Test
+	public void deveRegistrarNoSaldoAAtualizacaoParcialDoValor() {
+		//cenário
+		Lancamento alteracoes = Lancamento.builder().id(1l).valor(BigDecimal.valueOf(25)).build();
+		when(repository.obterResumoPorId(1l, null)).thenReturn(Optional.of(
+				new LancamentoDTO(1l, "existente", 1, 2019, BigDecimal.valueOf(10), 1l, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO)));
+		when(repository.atualizarCampos(alteracoes, null)).thenReturn(1);
+
+		//execução
+		service.atualizarParcialmente(alteracoes, null);
+
+		//verificações
+		verify(repository, never()).findById(any());
+		verify(saldoUsuarioService).registrarAlteracao(
+				argThat( anterior -> anterior.getValor().compareTo(BigDecimal.valueOf(10)) == 0 ),
+				argThat( atual -> atual.getValor().compareTo(BigDecimal.valueOf(25)) == 0 
+						&& atual.getStatus() == StatusLancamento.EFETIVADO ));
+	}
+
+	@Test
+	public void deveRegistrarNoResumoMensalAAtualizacaoParcialDoMes() {
+		//cenário
+		Lancamento alteracoes = Lancamento.builder().id(1l).mes(2).build();
+		when(repository.obterResumoPorId(1l, 1l)).thenReturn(Optional.of(
+				new LancamentoDTO(1l, "existente", 1, 2019, BigDecimal.valueOf(10), 1l, TipoLancamento.RECEITA, StatusLancamento.PENDENTE)));
+		when(repository.atualizarCampos(alteracoes, 1l)).thenReturn(1);
+
+		//execução
+		service.atualizarParcialmente(alteracoes, 1l);
+
+		//verificações
+		verify(resumoMensalService).registrarAlteracao(
+				argThat( anterior -> anterior.getMes() == 1 ),
+				argThat( atual -> atual.getMes() == 2 && atual.getAno() == 2019 ));
+	}
+
+	@Test
+	public void deveValidarApenasOsCamposEnviadosNaAtualizacaoParcial() {
+		//execução e verificação
+		Throwable erro = catchThrowable( () -> service.atualizarParcialmente(Lancamento.builder().id(1l).mes(13).build(), null) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um Mês válido!");
+		
+		erro = catchThrowable( () -> service.atualizarParcialmente(Lancamento.builder().id(1l).build(), null) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe ao menos um campo para alterar!");
+		verify(repository, never()).atualizarCampos(any(), any());
+	}
+
 	@Test
 	public void deveObterUmLancamentoPorId() {
 		//cenário
@@ -280,4 +564,40 @@ public class LancamentoServiceTest {
 		assertThat(saldo).isEqualTo(BigDecimal.valueOf(50));
 	}
 
+	@Test
+	public void deveObterSaldoConsolidadoSemConsultarOsLancamentos() {
+		//cenário
+		Long idUsuario = 1l;
+		when(saldoUsuarioService.obterSaldo(idUsuario)).thenReturn(Optional.of(BigDecimal.valueOf(80)));
+
+		//execução
+		BigDecimal saldo = service.obterSaldoPorUsuario(idUsuario);
+
+		//verificação
+		assertThat(saldo).isEqualTo(BigDecimal.valueOf(80));
+		verify(repository, never()).obterSaldoPorTipoLancamentoEUsuarioEStatus(any(), any(), any());
+	}
+
+	@Test
+	public void deveRegistrarNoSaldoOsValoresAnterioresEAtuaisAoAtualizar() {
+		//cenário
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setValor(BigDecimal.valueOf(30));
+		doNothing().when(service).validar(lancamento);
+
+		when(repository.obterResumoPorId(1l, null)).thenReturn(Optional.of(
+				new LancamentoDTO(1l, "anterior", 1, 2019, BigDecimal.valueOf(10), 1l, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO)));
+		when(repository.save(lancamento)).thenReturn(lancamento);
+
+		//execução
+		service.atualizar(lancamento);
+
+		//verificação
+		verify(repository, never()).findById(any());
+		verify(saldoUsuarioService).registrarAlteracao(
+				argThat( l -> l.getStatus() == StatusLancamento.EFETIVADO && l.getValor().equals(BigDecimal.valueOf(10)) ),
+				eq(lancamento));
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Year;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.service.impl.ParticaoLancamentoServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class ParticaoLancamentoServiceTest {
+
+	@SpyBean
+	ParticaoLancamentoServiceImpl service;
+	@MockBean
+	LancamentoRepository repository;
+	@MockBean
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	public void deveCriarAsParticoesDoAnoAtualEDosProximos() {
+		//cenário
+		int anoAtual = Year.now().getValue();
+		when(repository.criarParticaoAno(anyInt())).thenReturn(true);
+
+		//execução
+		int verificadas = service.criarParticoes();
+
+		//verificação
+		assertThat(verificadas).isEqualTo(3);
+		verify(repository).criarParticaoAno(anoAtual);
+		verify(repository).criarParticaoAno(anoAtual + 1);
+		verify(repository).criarParticaoAno(anoAtual + 2);
+	}
+
+	@Test
+	public void deveContinuarNosProximosAnosQuandoUmAnoFalhar() {
+		//cenário
+		int anoAtual = Year.now().getValue();
+		when(repository.criarParticaoAno(anyInt())).thenReturn(true);
+		when(repository.criarParticaoAno(anoAtual)).thenThrow(new QueryTimeoutException("lock timeout"));
+
+		//execução
+		int verificadas = service.criarParticoes();
+
+		//verificação
+		assertThat(verificadas).isEqualTo(2);
+		verify(repository).criarParticaoAno(anoAtual + 2);
+	}
+
+	@Test
+	public void naoDeveTentarOsProximosAnosEmBancoSemParticionamento() {
+		//cenário
+		when(repository.criarParticaoAno(anyInt())).thenReturn(false);
+
+		//execução
+		int verificadas = service.criarParticoes();
+
+		//verificação
+		assertThat(verificadas).isZero();
+		verify(repository, times(1)).criarParticaoAno(anyInt());
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ognavi.minhasfinancas.exception.RegraNegocioException;
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.ResumoMensal;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.ognavi.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.ognavi.minhasfinancas.service.impl.ResumoMensalServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class ResumoMensalServiceTest {
+
+	@SpyBean
+	ResumoMensalServiceImpl service;
+	@MockBean
+	ResumoMensalRepository repository;
+	@MockBean
+	LancamentoRepository lancamentoRepository;
+	@MockBean
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	public void deveMoverOLancamentoEntreOsMesesDoResumo() {
+		//cenário
+		Lancamento anterior = criarLancamento(1, StatusLancamento.PENDENTE, 100);
+		Lancamento atual = criarLancamento(2, StatusLancamento.PENDENTE, 100);
+		when(repository.incrementar(anyLong(), anyInt(), anyInt(), any(), any(), any(), anyLong())).thenReturn(1);
+
+		//execução
+		service.registrarAlteracao(anterior, atual);
+
+		//verificação
+		verify(repository).incrementar(1l, 2019, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, BigDecimal.valueOf(-100), -1l);
+		verify(repository).incrementar(1l, 2019, 2, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, BigDecimal.valueOf(100), 1l);
+		verify(repository, never()).save(any());
+	}
+
+	@Test
+	public void deveAgruparAsInclusoesDoMesmoMesTipoEStatus() {
+		//cenário
+		when(repository.incrementar(anyLong(), anyInt(), anyInt(), any(), any(), any(), anyLong())).thenReturn(1);
+
+		//execução
+		service.registrarInclusoes(Arrays.asList(
+				criarLancamento(1, StatusLancamento.PENDENTE, 10),
+				criarLancamento(1, StatusLancamento.PENDENTE, 15)));
+
+		//verificação
+		verify(repository).incrementar(1l, 2019, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, BigDecimal.valueOf(25), 2l);
+	}
+
+	@Test
+	public void deveMoverOsGruposParaONovoStatus() {
+		//cenário
+		ResumoMensal pendentes = new ResumoMensal(1l, 2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(40), 3l);
+		when(repository.incrementar(anyLong(), anyInt(), anyInt(), any(), any(), any(), anyLong())).thenReturn(1);
+
+		//execução
+		service.registrarAlteracaoDeStatus(Arrays.asList(pendentes), StatusLancamento.EFETIVADO);
+
+		//verificação
+		verify(repository).incrementar(1l, 2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(-40), -3l);
+		verify(repository).incrementar(1l, 2019, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(40), 3l);
+	}
+
+	@Test
+	public void deveCriarAChaveAPartirDosLancamentosQuandoAindaNaoExistirNoResumo() {
+		//cenário
+		Lancamento atual = criarLancamento(3, StatusLancamento.PENDENTE, 40);
+		ResumoMensal calculado = new ResumoMensal(1l, 2019, 3, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, BigDecimal.valueOf(40), 1l);
+		when(repository.incrementar(anyLong(), anyInt(), anyInt(), any(), any(), any(), anyLong())).thenReturn(0);
+		when(lancamentoRepository.obterResumoMensal(1l, 2019, 3, TipoLancamento.RECEITA, StatusLancamento.PENDENTE))
+			.thenReturn(Optional.of(calculado));
+
+		//execução
+		service.registrarAlteracao(null, atual);
+
+		//verificação
+		verify(repository).inserirOuIncrementar(eq(calculado),
+				argThat( variacao -> variacao.getTotal().equals(BigDecimal.valueOf(40)) && variacao.getQuantidade() == 1 ));
+		verify(repository, never()).save(any());
+	}
+
+	@Test
+	public void deveReconstruirUmUsuarioPorVezEIgnorarOQueColidirComUmaGravacao() {
+		//cenário
+		when(repository.obterUsuariosComLancamentosOuResumo()).thenReturn(Arrays.asList(1l, 2l, 3l));
+		when(repository.inserirAPartirDosLancamentos(1l)).thenReturn(2);
+		when(repository.inserirAPartirDosLancamentos(2l)).thenThrow(new DataIntegrityViolationException("chave duplicada"));
+		when(repository.inserirAPartirDosLancamentos(3l)).thenReturn(1);
+
+		//execução
+		int chaves = service.reconstruir();
+
+		//verificação
+		assertThat(chaves).isEqualTo(3);
+		verify(repository).excluirPorUsuario(1l);
+		verify(repository).excluirPorUsuario(3l);
+		verify(transactionManager).rollback(any());
+	}
+
+	@Test
+	public void deveValidarAQuantidadeDeMesesDoResumo() {
+		//execução e verificação
+		Throwable erro = catchThrowable( () -> service.obterResumo(1l, 0) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+
+		service.obterResumo(1l, null);
+		verify(repository).buscarPorPeriodo(eq(1l), anyInt(), anyInt(), anyInt(), anyInt());
+	}
+
+	private Lancamento criarLancamento(int mes, StatusLancamento status, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		lancamento.setMes(mes);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ognavi.minhasfinancas.model.entity.Lancamento;
+import com.ognavi.minhasfinancas.model.entity.SaldoUsuario;
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.model.enums.StatusLancamento;
+import com.ognavi.minhasfinancas.model.enums.TipoLancamento;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepository;
+import com.ognavi.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.ognavi.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.ognavi.minhasfinancas.service.impl.SaldoUsuarioServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class SaldoUsuarioServiceTest {
+
+	@SpyBean
+	SaldoUsuarioServiceImpl service;
+	@MockBean
+	SaldoUsuarioRepository repository;
+	@MockBean
+	LancamentoRepository lancamentoRepository;
+	@MockBean
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	public void deveIncrementarOSaldoComADiferencaEntreOsValores() {
+		//cenário
+		Lancamento anterior = criarLancamento(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100);
+		Lancamento atual = criarLancamento(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 150);
+		when(repository.incrementar(1l, BigDecimal.valueOf(50), BigDecimal.ZERO)).thenReturn(1);
+
+		//execução
+		service.registrarAlteracao(anterior, atual);
+
+		//verificação
+		verify(repository).incrementar(1l, BigDecimal.valueOf(50), BigDecimal.ZERO);
+		verify(service, never()).recalcular(anyLong());
+	}
+
+	@Test
+	public void naoDeveAlterarOSaldoQuandoOLancamentoNaoEstiverEfetivado() {
+		//cenário
+		Lancamento anterior = criarLancamento(TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 100);
+		Lancamento atual = criarLancamento(TipoLancamento.DESPESA, StatusLancamento.CANCELADO, 100);
+
+		//execução
+		service.registrarAlteracao(anterior, atual);
+
+		//verificação
+		verify(repository, never()).incrementar(anyLong(), any(), any());
+	}
+
+	@Test
+	public void deveCriarOSaldoAPartirDosLancamentosQuandoOUsuarioAindaNaoPossuirConsolidado() {
+		//cenário
+		Lancamento atual = criarLancamento(TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 40);
+		SaldoUsuario calculado = new SaldoUsuario(1l, BigDecimal.ZERO, BigDecimal.valueOf(40));
+		when(repository.incrementar(1l, BigDecimal.ZERO, BigDecimal.valueOf(40))).thenReturn(0);
+		when(lancamentoRepository.obterSaldoConsolidadoPorUsuario(1l)).thenReturn(Optional.of(calculado));
+
+		//execução
+		service.registrarAlteracao(null, atual);
+
+		//verificação
+		verify(repository).inserirOuIncrementar(eq(calculado),
+				argThat( variacao -> variacao.getDespesas().equals(BigDecimal.valueOf(40)) ));
+		verify(repository, never()).save(any());
+	}
+
+	@Test
+	public void deveCorrigirOsSaldosDivergentesNaVerificacao() {
+		//cenário
+		SaldoUsuario consolidado = new SaldoUsuario(1l, BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+		SaldoUsuario semConsolidado = new SaldoUsuario(2l, BigDecimal.valueOf(5), BigDecimal.ZERO);
+		SaldoUsuario conferido = new SaldoUsuario(3l, BigDecimal.ONE, BigDecimal.ONE);
+		when(repository.obterUsuariosComSaldoOuEfetivados()).thenReturn(Arrays.asList(1l, 2l, 3l));
+		when(repository.obterParaAtualizacao(1l)).thenReturn(Optional.of(consolidado));
+		when(repository.obterParaAtualizacao(2l)).thenReturn(Optional.empty());
+		when(repository.obterParaAtualizacao(3l)).thenReturn(Optional.of(new SaldoUsuario(3l, BigDecimal.ONE, BigDecimal.ONE)));
+		when(lancamentoRepository.obterSaldoConsolidadoPorUsuario(1l))
+			.thenReturn(Optional.of(new SaldoUsuario(1l, BigDecimal.valueOf(100), BigDecimal.valueOf(40))));
+		when(lancamentoRepository.obterSaldoConsolidadoPorUsuario(2l)).thenReturn(Optional.of(semConsolidado));
+		when(lancamentoRepository.obterSaldoConsolidadoPorUsuario(3l)).thenReturn(Optional.of(conferido));
+
+		//execução
+		int divergentes = service.verificarSaldos();
+
+		//verificação
+		assertThat(divergentes).isEqualTo(2);
+		assertThat(consolidado.getDespesas()).isEqualByComparingTo(BigDecimal.valueOf(40));
+		verify(repository).inserirOuIncrementar(eq(semConsolidado),
+				argThat( variacao -> variacao.getReceitas().signum() == 0 && variacao.getDespesas().signum() == 0 ));
+		verify(repository, never()).save(any());
+		verify(transactionManager, times(3)).commit(any());
+	}
+
+	private Lancamento criarLancamento(TipoLancamento tipo, StatusLancamento status, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+
+}
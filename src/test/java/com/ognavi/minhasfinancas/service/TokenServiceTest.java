@@ -0,0 +1,49 @@
+package com.ognavi.minhasfinancas.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.ognavi.minhasfinancas.model.entity.Usuario;
+import com.ognavi.minhasfinancas.service.impl.TokenServiceImpl;
+
+public class TokenServiceTest {
+	
+	static final String SEGREDO = "segredo-de-teste";
+	
+	Usuario usuario = Usuario.builder().id(1l).email("email@email.com").build();
+	
+	@Test
+	public void deveValidarUmTokenGerado() {
+		//cenário
+		TokenService service = new TokenServiceImpl(SEGREDO, 60);
+		String token = service.gerarToken(usuario);
+		
+		//ação e verificação
+		Assertions.assertThat(service.validarToken(token)).contains(1l);
+	}
+	
+	@Test
+	public void naoDeveValidarUmTokenAlterado() {
+		//cenário
+		TokenService service = new TokenServiceImpl(SEGREDO, 60);
+		String token = service.gerarToken(usuario);
+		String outroUsuario = new TokenServiceImpl(SEGREDO, 60).gerarToken(Usuario.builder().id(2l).build());
+		
+		//ação e verificação
+		String alterado = outroUsuario.substring(0, outroUsuario.indexOf('.')) + token.substring(token.indexOf('.'));
+		Assertions.assertThat(service.validarToken(alterado)).isEmpty();
+		Assertions.assertThat(service.validarToken("lixo")).isEmpty();
+		Assertions.assertThat(new TokenServiceImpl("outro-segredo", 60).validarToken(token)).isEmpty();
+	}
+	
+	@Test
+	public void naoDeveValidarUmTokenExpirado() {
+		//cenário
+		TokenService service = new TokenServiceImpl(SEGREDO, -1);
+		String token = service.gerarToken(usuario);
+		
+		//ação e verificação
+		Assertions.assertThat(service.validarToken(token)).isEmpty();
+	}
+	
+}
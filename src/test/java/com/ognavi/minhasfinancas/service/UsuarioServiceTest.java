@@ -6,8 +6,13 @@ import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -17,8 +22,13 @@ import com.ognavi.minhasfinancas.model.entity.Usuario;
 import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
 import com.ognavi.minhasfinancas.service.impl.UsuarioServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//um contexto novo por teste, para que os caches não levem usuários de um teste para o outro
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
 public class UsuarioServiceTest {
 	
 	@SpyBean
@@ -27,6 +37,19 @@ public class UsuarioServiceTest {
 	@MockBean
 	UsuarioRepository repository;
 	
+	@Autowired
+	MeterRegistry meterRegistry;
+	
+	@TestConfiguration
+	static class Metricas {
+		
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+		
+	}
+	
 	@Test(expected = Test.None.class)
 	public void deveSalvarUmUsuario() {
 		//cenário
@@ -110,6 +133,36 @@ public class UsuarioServiceTest {
 		Assertions.assertThat(exception).isInstanceOf(ErroAutenticacao.class).hasMessage("Senha inválida!");
 	}
 	
+	@Test
+	public void deveGravarASenhaComHash() {
+		//cenário
+		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
+		Mockito.when(repository.save(Mockito.any(Usuario.class))).thenAnswer(invocacao -> invocacao.getArgument(0));
+		Usuario usuario = Usuario.builder().email("email@email.com").senha("senha").build();
+		
+		//ação
+		Usuario usuarioSalvo = service.salvarUsuario(usuario);
+		
+		//verificação
+		Assertions.assertThat(usuarioSalvo.getSenha()).isNotEqualTo("senha").startsWith("$2a$");
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuarioSalvo));
+		Assertions.assertThat(service.autenticar("email@email.com", "senha")).isNotNull();
+	}
+	
+	@Test
+	public void deveConverterSenhaLegadaParaHashAoAutenticar() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").senha("senha").build();
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+		
+		//ação
+		service.autenticar("email@email.com", "senha");
+		
+		//verificação
+		Assertions.assertThat(usuario.getSenha()).startsWith("$2a$");
+		Mockito.verify(repository).save(usuario);
+	}
+	
 	
 	@Test(expected = Test.None.class)
 	public void deveValidarEmail() {
@@ -120,6 +173,54 @@ public class UsuarioServiceTest {
 		service.validarEmail("email@email.com");
 	}
 	
+	@Test
+	public void deveConsultarOBancoApenasNaPrimeiraBuscaPorId() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").build();
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(usuario));
+		
+		//acao
+		service.obterPorId(1l);
+		Optional<Usuario> result = service.obterPorId(1l);
+		
+		//verificacao
+		Assertions.assertThat(result).contains(usuario);
+		Mockito.verify(repository, Mockito.times(1)).findById(1l);
+		Assertions.assertThat(meterRegistry.get("cache.gets").tag("cache", "usuarioPorId").tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+	}
+	
+	@Test
+	public void naoDeveGuardarNoCacheUsuarioInexistente() {
+		//cenário
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.empty());
+		
+		//acao
+		service.obterPorId(1l);
+		Optional<Usuario> result = service.obterPorId(1l);
+		
+		//verificacao
+		Assertions.assertThat(result.isPresent()).isFalse();
+		Mockito.verify(repository, Mockito.times(2)).findById(1l);
+	}
+	
+	@Test
+	public void deveInvalidarOCacheAoSalvarUmUsuario() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").build();
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(usuario));
+		Mockito.when(repository.save(Mockito.any(Usuario.class))).thenReturn(usuario);
+		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
+		service.obterPorId(1l);
+		
+		//acao
+		service.salvarUsuario(usuario);
+		service.obterPorId(1l);
+		
+		//verificacao
+		Mockito.verify(repository, Mockito.times(2)).findById(1l);
+	}
+	
 	@Test(expected = RegraNegocioException.class)
 	public void deveLancarErroAoValidarEmailQuandoExistirEmailCadastrado() {
 		//cenario
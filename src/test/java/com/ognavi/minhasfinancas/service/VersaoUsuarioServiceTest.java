@@ -0,0 +1,87 @@
+package com.ognavi.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.ognavi.minhasfinancas.model.repository.UsuarioRepository;
+import com.ognavi.minhasfinancas.service.impl.VersaoUsuarioServiceImpl;
+
+//um contexto novo por teste, para que o cache de versões não leve valores de um teste para o outro
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class VersaoUsuarioServiceTest {
+
+	@SpyBean
+	VersaoUsuarioServiceImpl service;
+	@MockBean
+	UsuarioRepository repository;
+
+	@Test
+	public void deveGerarAEtagComAVersaoDoUsuarioELerOBancoUmaUnicaVez() {
+		//cenário
+		when(repository.obterVersao(1l)).thenReturn(7l);
+
+		//execução
+		String etag = service.obterEtag(1l);
+		service.obterEtag(1l);
+
+		//verificação
+		assertThat(etag).isEqualTo("W/\"1.7\"");
+		assertThat(service.obterUsuarioDaEtag(etag)).contains(1l);
+		assertThat(service.obterEtag(1l, 5l)).isEqualTo("W/\"1.7.5\"");
+		assertThat(service.obterUsuarioDaEtag("W/\"1.7.5\"")).contains(1l);
+		verify(repository, times(1)).obterVersao(1l);
+	}
+
+	@Test
+	public void deveLerANovaVersaoDepoisDeUmaAlteracao() {
+		//cenário
+		when(repository.obterVersao(1l)).thenReturn(7l, 8l);
+		service.obterVersao(1l);
+
+		//execução
+		service.registrarAlteracao(Arrays.asList(1l, null));
+
+		//verificação
+		verify(repository).incrementarVersao(new HashSet<>(Arrays.asList(1l)));
+		assertThat(service.obterVersao(1l)).isEqualTo(8l);
+	}
+
+	@Test
+	public void naoDeveIncrementarSemUsuarios() {
+		//execução
+		service.registrarAlteracao(Collections.singletonList(null));
+
+		//verificação
+		verify(repository, never()).incrementarVersao(any());
+	}
+
+	@Test
+	public void deveCompararAsEtagsEnviadasNoIfNoneMatch() {
+		assertThat(service.naoModificado("W/\"1.7\"", "W/\"1.7\"")).isTrue();
+		assertThat(service.naoModificado("\"1.6\", \"1.7\"", "W/\"1.7\"")).isTrue();
+		assertThat(service.naoModificado("*", "W/\"1.7\"")).isTrue();
+		assertThat(service.naoModificado("W/\"1.6\"", "W/\"1.7\"")).isFalse();
+		assertThat(service.naoModificado(null, "W/\"1.7\"")).isFalse();
+		assertThat(service.obterUsuarioDaEtag("\"abc\"")).isEmpty();
+	}
+
+}